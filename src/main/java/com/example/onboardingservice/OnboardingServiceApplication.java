@@ -1,10 +1,5 @@
 package com.example.onboardingservice;
 
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.example.onboardingservice.model.Manager;
 import com.example.onboardingservice.model.User;
 import com.example.onboardingservice.service.AuthenticationService;
@@ -22,6 +17,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
@@ -31,12 +27,9 @@ import java.util.Optional;
 
 
 @SpringBootApplication
+@EnableScheduling
 @Slf4j
 public class OnboardingServiceApplication extends SpringBootServletInitializer {
-    @Value("${storage.credentials.key}")
-    private String key;
-    @Value("${storage.credentials.secret}")
-    private String secret;
     @Value("${manager.credentials.email}")
     private String managerEmail;
     @Value("${manager.credentials.password}")
@@ -60,19 +53,6 @@ public class OnboardingServiceApplication extends SpringBootServletInitializer {
         };
     }
 
-    @Bean
-    public AmazonS3 amazonS3() {
-        AWSCredentials credentials = new BasicAWSCredentials(key, secret);
-        return AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withEndpointConfiguration(
-                        new AmazonS3ClientBuilder.EndpointConfiguration(
-                                "storage.yandexcloud.net", "ru-central1"
-                        )
-                )
-                .build();
-    }
-
     public @Bean OpenAPI noteAPI() {
         return new OpenAPI()
                 .info(
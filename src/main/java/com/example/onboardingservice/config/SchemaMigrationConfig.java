@@ -0,0 +1,24 @@
+package com.example.onboardingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The schema is owned by the migrations in db/migration. Databases created before them, by Hibernate,
+ * have tables but no migration history; they are baselined at V1, the schema Hibernate generated,
+ * and get the later migrations only.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+    @Value("${spring.flyway.baseline-on-migrate:true}")
+    private boolean baselineOnMigrate;
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(baselineOnMigrate)
+                .baselineVersion("1");
+    }
+}
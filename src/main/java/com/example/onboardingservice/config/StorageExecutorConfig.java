@@ -0,0 +1,114 @@
+package com.example.onboardingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class StorageExecutorConfig {
+    @Value("${storage.zip.prefetch-threads:16}")
+    private int zipPrefetchThreads;
+    @Value("${storage.zip.prefetch-queue-capacity:256}")
+    private int zipPrefetchQueueCapacity;
+    @Value("${storage.upload.part-threads:16}")
+    private int uploadPartThreads;
+    @Value("${storage.upload.part-queue-capacity:32}")
+    private int uploadPartQueueCapacity;
+    @Value("${storage.upload.file-threads:16}")
+    private int imageUploadThreads;
+    @Value("${storage.upload.file-queue-capacity:256}")
+    private int imageUploadQueueCapacity;
+    @Value("${storage.preview.threads:2}")
+    private int previewThreads;
+    @Value("${storage.preview.queue-capacity:1000}")
+    private int previewQueueCapacity;
+    @Value("${storage.resilience.threads:64}")
+    private int storageCallThreads;
+
+    /**
+     * Shared by all zip downloads. Each download keeps at most storage.zip.prefetch-count
+     * tasks in flight; when the queue is full the download fetches the object itself.
+     */
+    @Bean
+    public ExecutorService zipPrefetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                zipPrefetchThreads, zipPrefetchThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(zipPrefetchQueueCapacity),
+                new CustomizableThreadFactory("zip-prefetch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sends multipart upload parts. Each upload keeps at most storage.upload.part-parallelism parts in flight.
+     * Queued parts are held in memory, so the queue is small; when it is full the upload sends the part itself.
+     */
+    @Bean
+    public ExecutorService uploadPartExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                uploadPartThreads, uploadPartThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadPartQueueCapacity),
+                new CustomizableThreadFactory("upload-part-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs whole-file uploads. Kept apart from {@link #uploadPartExecutor()} because file
+     * uploads wait on their parts, and sharing one pool could starve the parts of threads.
+     * When the queue is full the request thread uploads the file itself, which slows the request down.
+     */
+    @Bean
+    public ExecutorService imageUploadExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                imageUploadThreads, imageUploadThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(imageUploadQueueCapacity),
+                new CustomizableThreadFactory("image-upload-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Generates image previews. Decoding is CPU and memory heavy, so the pool is small and the queue
+     * bounded; previews dropped when it is full are picked up by the backfill of {@code ImagePreviewService}.
+     */
+    @Bean
+    public ExecutorService previewExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                previewThreads, previewThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(previewQueueCapacity),
+                new CustomizableThreadFactory("image-preview-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs bucket requests for {@code StorageResilience}, so callers can stop waiting on them.
+     * Nothing is queued: when every thread is busy the call is rejected and fails fast.
+     */
+    @Bean
+    public ExecutorService storageCallExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                storageCallThreads, storageCallThreads,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new CustomizableThreadFactory("storage-call-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.onboardingservice.config;
+
+import com.example.onboardingservice.service.UploadBudget;
+import com.example.onboardingservice.web.config.UploadAdmissionFilter;
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Multipart limits derived from the upload budget, replacing the ones Spring Boot would configure
+ * from {@code spring.servlet.multipart.*} (the same properties are still read here). No request may
+ * be larger than a client can ever have in flight, and parts are only held in memory below the
+ * spooling threshold, so the heap taken by upload bodies stays within the budget; larger parts go to disk.
+ */
+@Configuration
+public class UploadAdmissionConfig {
+    @Value("${spring.servlet.multipart.max-file-size:1MB}")
+    private DataSize maxFileSize;
+    @Value("${spring.servlet.multipart.max-request-size:10MB}")
+    private DataSize maxRequestSize;
+    @Value("${spring.servlet.multipart.file-size-threshold:64KB}")
+    private DataSize fileSizeThreshold;
+    @Value("${spring.servlet.multipart.location:}")
+    private String location;
+    @Value("${storage.upload.admission.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement(UploadBudget uploadBudget) {
+        long maxRequestBytes = maxRequestBytes(uploadBudget);
+        MultipartConfigFactory factory = new MultipartConfigFactory();
+        factory.setMaxFileSize(DataSize.ofBytes(Math.min(maxFileSize.toBytes(), maxRequestBytes)));
+        factory.setMaxRequestSize(DataSize.ofBytes(maxRequestBytes));
+        factory.setFileSizeThreshold(DataSize.ofBytes(Math.min(fileSizeThreshold.toBytes(), maxRequestBytes)));
+        if (!location.isBlank()) {
+            factory.setLocation(location);
+        }
+        return factory.createMultipartConfig();
+    }
+
+    /**
+     * Runs after Spring Security, so unauthenticated uploads are turned away before they reserve anything.
+     */
+    @Bean
+    public FilterRegistrationBean<UploadAdmissionFilter> uploadAdmissionFilter(UploadBudget uploadBudget) {
+        FilterRegistrationBean<UploadAdmissionFilter> registration = new FilterRegistrationBean<>(
+                new UploadAdmissionFilter(uploadBudget, maxRequestBytes(uploadBudget), retryAfterSeconds));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    private long maxRequestBytes(UploadBudget uploadBudget) {
+        return Math.min(maxRequestSize.toBytes(), uploadBudget.maxUploadBytes());
+    }
+}
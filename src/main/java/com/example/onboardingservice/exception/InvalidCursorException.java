@@ -0,0 +1,10 @@
+package com.example.onboardingservice.exception;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.onboardingservice.exception;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class InvalidUploadException extends Exception {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.onboardingservice.exception;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class QuotaExceededException extends Exception {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
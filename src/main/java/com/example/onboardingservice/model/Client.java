@@ -22,16 +22,18 @@ public class Client extends User {
     private String fullName;
 
     @Schema(example = "[\"answer 1\",\"answer 2\",...]")
-    @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
+    @ElementCollection(targetClass = String.class, fetch = FetchType.LAZY)
     @CollectionTable(name = "form_answers", joinColumns = @JoinColumn(name = "id"))
     @Column(name = "form_answers", nullable = false)
+    @OrderColumn(name = "list_index")
     @Size(max = 6)
     private List<String> formAnswers;
 
     @Schema(example = "[\"stage 1\",\"stage 2\",...]")
-    @ElementCollection(targetClass = String.class, fetch = FetchType.EAGER)
+    @ElementCollection(targetClass = String.class, fetch = FetchType.LAZY)
     @CollectionTable(name = "onboarding_stages", joinColumns = @JoinColumn(name = "id"))
     @Column(name = "onboarding_stages", nullable = false)
+    @OrderColumn(name = "list_index")
     @Size(max = 3)
     private List<String> onboardingStages;
 
@@ -0,0 +1,39 @@
+package com.example.onboardingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Everything a client app reads on launch, in one row per client: the client's form and the useful
+ * info and contact details notes. Rebuilt from those tables whenever one of them changes, in the
+ * same transaction, so it is never behind what was committed.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+@Table(name = "client_profile")
+public class ClientProfile implements Serializable {
+    @Id
+    @ToString.Include
+    private String email;
+    private String fullName;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> formAnswers;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> onboardingStages;
+    private Long activeStage;
+    /** Null if the client has no useful info note. */
+    private String usefulInfoContent;
+    /** Null if the client has no contact details note. */
+    private String contactDetailsContent;
+    private Instant updatedAt;
+}
@@ -0,0 +1,93 @@
+package com.example.onboardingservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * File formats recognised from their leading bytes. {@code compressed} marks formats whose
+ * payload is already entropy-coded, so deflating them again only burns CPU.
+ */
+@AllArgsConstructor
+@Getter
+public enum FileFormat {
+    JPEG("image/jpeg", true, true),
+    PNG("image/png", true, true),
+    GIF("image/gif", true, true),
+    WEBP("image/webp", true, true),
+    HEIC("image/heic", true, true),
+    AVIF("image/avif", true, true),
+    BMP("image/bmp", true, false),
+    TIFF("image/tiff", true, false),
+    MP4("video/mp4", false, true),
+    ZIP("application/zip", false, true),
+    GZIP("application/gzip", false, true),
+    PDF("application/pdf", false, false);
+
+    /** Enough leading bytes to tell every format above apart. */
+    public static final int SIGNATURE_LENGTH = 16;
+
+    final String mimeType;
+    final boolean image;
+    final boolean compressed;
+
+    public static Optional<FileFormat> detect(byte[] head) {
+        if (startsWith(head, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(head, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(head, 'G', 'I', 'F', '8')) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(head, 'R', 'I', 'F', 'F') && ascii(head, 8, 4).equals("WEBP")) {
+            return Optional.of(WEBP);
+        }
+        if (ascii(head, 4, 4).equals("ftyp")) {
+            return switch (ascii(head, 8, 4)) {
+                case "heic", "heix", "hevc", "mif1", "msf1" -> Optional.of(HEIC);
+                case "avif", "avis" -> Optional.of(AVIF);
+                default -> Optional.of(MP4);
+            };
+        }
+        if (startsWith(head, 'B', 'M')) {
+            return Optional.of(BMP);
+        }
+        if (startsWith(head, 'I', 'I', 0x2A, 0x00) || startsWith(head, 'M', 'M', 0x00, 0x2A)) {
+            return Optional.of(TIFF);
+        }
+        if (startsWith(head, 'P', 'K', 0x03, 0x04)) {
+            return Optional.of(ZIP);
+        }
+        if (startsWith(head, 0x1F, 0x8B)) {
+            return Optional.of(GZIP);
+        }
+        if (startsWith(head, '%', 'P', 'D', 'F', '-')) {
+            return Optional.of(PDF);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] head, int... signature) {
+        if (head.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] head, int offset, int length) {
+        if (head.length < offset + length) {
+            return "";
+        }
+        return new String(Arrays.copyOfRange(head, offset, offset + length), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.onboardingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Stored bytes of one distinct image, keyed by the SHA-256 of its content. Manifest entries with
+ * the same content share a blob; {@code refCount} is the number of entries pointing at it.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+@Table(name = "image_blob")
+public class ImageBlob implements Serializable {
+    @Id
+    @ToString.Include
+    private String hash;
+    @Column(nullable = false)
+    private String storageKey;
+    private long size;
+    private String contentType;
+    private String etag;
+    /** Downscaled JPEG stored next to the blob; null until generated. */
+    private String previewKey;
+    /** Set once preview generation ran, successful or not, so failures are not retried forever. */
+    private Instant previewAttemptedAt;
+    private long refCount;
+    private Instant createdAt;
+    /** When the last reference went away; null while the blob is referenced. */
+    private Instant releasedAt;
+}
@@ -0,0 +1,51 @@
+package com.example.onboardingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One stored image. The manifest mirrors the bucket so that listing, sizing and zipping
+ * a prefix is a database query instead of a storage LIST.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+@Table(name = "image_manifest")
+public class ImageManifestEntry implements Serializable {
+    @Id
+    @GeneratedValue
+    @ToString.Include
+    private Long id;
+    @ToString.Include
+    @Column(nullable = false, unique = true)
+    private String objectKey;
+    /** Directory of the object including the trailing "/", e.g. "media-assets/bill_edwards@gmail.com/". */
+    @Column(nullable = false)
+    private String prefix;
+    @Column(nullable = false)
+    private String ownerEmail;
+    private Long reportId;
+    private long size;
+    private String contentType;
+    private String etag;
+    private Instant uploadedAt;
+    /** SHA-256 of the content, the {@link ImageBlob} holding the bytes; null for objects stored under their own key. */
+    private String contentHash;
+    private String storageKey;
+    /** Copied from the blob so listings need no join; null while the preview is not generated. */
+    private String previewKey;
+
+    /**
+     * Key the bytes are stored under: the shared blob, or the object key itself for images that
+     * predate deduplication or were found in the bucket by reconciliation.
+     */
+    public String getStorageKey() {
+        return storageKey != null ? storageKey : objectKey;
+    }
+}
@@ -28,7 +28,7 @@ public class Note implements Serializable {
     private LocalDate date;
     private String content;
     @JsonIgnore
-    @ManyToOne(fetch=FetchType.EAGER)
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name = "client_id", referencedColumnName = "id")
     private Client recipient;
     @JsonIgnore
@@ -25,7 +25,7 @@ public class Report implements Serializable {
     @Schema(example = "yyyy-MM-dd")
     private LocalDate date;
     @JsonIgnore
-    @ManyToOne(fetch=FetchType.EAGER)
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name = "client_id", referencedColumnName = "id")
     private Client recipient;
     @JsonIgnore
@@ -0,0 +1,32 @@
+package com.example.onboardingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Bytes and number of stored images of one client ("client/{email}") or one report ("report/{id}"),
+ * kept up to date as the manifest changes so sizes are read instead of summed. Deduplicated images
+ * count in full for every entry, this is what the client stored, not what the bucket holds.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+@Table(name = "storage_usage")
+public class StorageUsage implements Serializable {
+    @Id
+    @ToString.Include
+    private String scope;
+    @Column(nullable = false)
+    private String ownerEmail;
+    /** Null for the client total. */
+    private Long reportId;
+    private long bytes;
+    private long objects;
+    private Instant updatedAt;
+}
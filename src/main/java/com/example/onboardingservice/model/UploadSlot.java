@@ -0,0 +1,28 @@
+package com.example.onboardingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * An object key signed for a direct upload. Only keys with a slot can be completed, and only objects
+ * under a slot are ever deleted for failing the upload checks. The slot is dropped once the object
+ * has been registered or rejected.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(onlyExplicitlyIncluded = true)
+@Table(name = "upload_slot")
+public class UploadSlot implements Serializable {
+    @Id
+    @ToString.Include
+    private String objectKey;
+    /** When the signed URL stops working; until then the upload may still arrive and be completed. */
+    private Instant expiresAt;
+    private Instant createdAt;
+}
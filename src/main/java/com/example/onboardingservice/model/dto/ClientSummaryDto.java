@@ -0,0 +1,24 @@
+package com.example.onboardingservice.model.dto;
+
+import com.example.onboardingservice.model.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ClientSummaryDto {
+    @Schema(example = "bill_edwards@gmail.com")
+    private String email;
+    private Role role;
+    @Schema(example = "Bill Edwards")
+    private String fullName;
+    @Schema(example = "[\"answer 1\",\"answer 2\",...]")
+    private List<String> formAnswers;
+    @Schema(example = "[\"stage 1\",\"stage 2\",...]")
+    private List<String> onboardingStages;
+    @Schema(example = "1")
+    private Long activeStage;
+}
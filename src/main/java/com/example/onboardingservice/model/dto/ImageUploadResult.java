@@ -0,0 +1,14 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ImageUploadResult {
+    private String filename;
+    private boolean uploaded;
+    /** The content was already stored, so the bytes were not transferred again. */
+    private boolean deduplicated;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ImagesDto {
+    private List<String> imageUrls;
+    /** Same order as imageUrls; the original's URL where no preview exists. */
+    private List<String> previewUrls;
+}
@@ -0,0 +1,21 @@
+package com.example.onboardingservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of a note clients see, read without the note's recipient.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class NoteDto {
+    private Long id;
+    @Schema(example = "Meeting in November")
+    private String header;
+    @Schema(example = "yyyy-MM-dd")
+    private LocalDate date;
+    private String content;
+}
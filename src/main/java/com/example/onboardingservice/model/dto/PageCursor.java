@@ -0,0 +1,39 @@
+package com.example.onboardingservice.model.dto;
+
+import com.example.onboardingservice.exception.InvalidCursorException;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by date and id, both descending: the next page starts after this row.
+ * Clients get it as an opaque string and pass it back unchanged.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class PageCursor {
+    private LocalDate date;
+    private Long id;
+
+    public String encode() {
+        String value = date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) throws InvalidCursorException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new PageCursor(LocalDate.parse(value.substring(0, separator)), Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
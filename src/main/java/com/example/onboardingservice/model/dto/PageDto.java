@@ -0,0 +1,26 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class PageDto<T> {
+    private List<T> items;
+    /** Null on the last page. */
+    private String nextCursor;
+
+    /**
+     * Page from rows fetched with one more than the limit; the extra row only tells that more follow.
+     */
+    public static <T> PageDto<T> of(List<T> rows, int limit, Function<T, PageCursor> cursor) {
+        if (rows.size() <= limit) {
+            return new PageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageDto<>(items, cursor.apply(items.get(limit - 1)).encode());
+    }
+}
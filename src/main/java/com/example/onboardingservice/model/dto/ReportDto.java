@@ -0,0 +1,20 @@
+package com.example.onboardingservice.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of a report clients see, read without the report's recipient.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class ReportDto {
+    private Long id;
+    @Schema(example = "Report on advertisement in Facebook")
+    private String name;
+    @Schema(example = "yyyy-MM-dd")
+    private LocalDate date;
+}
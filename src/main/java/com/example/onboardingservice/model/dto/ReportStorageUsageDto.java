@@ -0,0 +1,12 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ReportStorageUsageDto {
+    private Long reportId;
+    private long bytes;
+    private long objectCount;
+}
@@ -1,6 +1,5 @@
 package com.example.onboardingservice.model.dto;
 
-import com.example.onboardingservice.model.Report;
 import lombok.*;
 
 import java.util.List;
@@ -11,7 +10,8 @@ import java.util.Map;
 @Builder
 public class ReportWithImagesDto {
     private Long reportId;
-    private Report reportData;
+    private ReportDto reportData;
     private List<String> imageUrls;
+    private List<String> previewUrls;
     private Long sizeKb;
 }
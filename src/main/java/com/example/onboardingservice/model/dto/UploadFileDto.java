@@ -0,0 +1,20 @@
+package com.example.onboardingservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+@Data
+@Builder
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UploadFileDto {
+    @Schema(example = "banner.jpg")
+    private String filename;
+    @Schema(example = "image/jpeg")
+    private String contentType;
+    @Schema(example = "524288")
+    private long size;
+}
@@ -0,0 +1,20 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Where and how to PUT one file: the bytes go straight to the bucket with exactly these headers.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class UploadSlotDto {
+    private String filename;
+    private String objectKey;
+    private String uploadUrl;
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
@@ -0,0 +1,20 @@
+package com.example.onboardingservice.model.dto;
+
+import lombok.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Path;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ZipArchiveDto {
+    /** Fingerprint of the archived images, changes whenever an image is added or replaced. */
+    private String etag;
+    /** The archive on disk if it has been built before, otherwise null. */
+    private Path cachedFile;
+    /** Writes the whole archive, from the cache when it is there, otherwise building the cached copy on the way. */
+    private StreamingResponseBody body;
+    /** Whether archives are cached, without a cached copy a byte range cannot be served. */
+    private boolean rangesSupported;
+}
@@ -0,0 +1,40 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.model.ClientProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ClientProfileRepository extends JpaRepository<ClientProfile, String> {
+
+    /**
+     * Rebuilds the profile of the client from the client and its notes; pending changes are flushed first
+     * so the ones of the calling transaction are included. Does nothing if there is no such client.
+     * Enums are stored as ordinals; the caller binds the ones of the client role and of the note types.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into client_profile (email, full_name, form_answers, onboarding_stages, active_stage, " +
+            "useful_info_content, contact_details_content, updated_at) " +
+            "select u.email, u.full_name, " +
+            "coalesce((select jsonb_agg(a.form_answers order by a.list_index) from form_answers a where a.id = u.id), '[]'::jsonb), " +
+            "coalesce((select jsonb_agg(s.onboarding_stages order by s.list_index) from onboarding_stages s where s.id = u.id), '[]'::jsonb), " +
+            "u.active_stage, " +
+            "(select n.content from note n where n.client_id = u.id and n.note_type = :usefulInfo and n.removed_at is null " +
+            "order by n.date desc, n.id desc limit 1), " +
+            "(select n.content from note n where n.client_id = u.id and n.note_type = :contactDetails and n.removed_at is null " +
+            "order by n.date desc, n.id desc limit 1), " +
+            "now() " +
+            "from table_user u where u.email = :email and u.role = :clientRole " +
+            "on conflict (email) do update set full_name = excluded.full_name, form_answers = excluded.form_answers, " +
+            "onboarding_stages = excluded.onboarding_stages, active_stage = excluded.active_stage, " +
+            "useful_info_content = excluded.useful_info_content, " +
+            "contact_details_content = excluded.contact_details_content, updated_at = excluded.updated_at",
+            nativeQuery = true)
+    int refresh(@Param("email") String email,
+                @Param("clientRole") int clientRole,
+                @Param("usefulInfo") int usefulInfo,
+                @Param("contactDetails") int contactDetails);
+}
@@ -0,0 +1,58 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.model.ImageBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Transaction-scoped Postgres advisory lock on the content hash, serialising reference changes
+     * with the removal of the blob.
+     */
+    @Query(value = "select 1 from pg_advisory_xact_lock(hashtext(:hash))", nativeQuery = true)
+    int lock(@Param("hash") String hash);
+
+    /**
+     * Adds a reference to the blob, creating it on first use. A single statement, so concurrent
+     * uploads of the same content cannot both insert it.
+     */
+    @Modifying
+    @Query(value = "insert into image_blob (hash, storage_key, size, content_type, etag, ref_count, created_at, released_at) " +
+            "values (:hash, :storageKey, :size, :contentType, :etag, 1, now(), null) " +
+            "on conflict (hash) do update set ref_count = image_blob.ref_count + 1, released_at = null",
+            nativeQuery = true)
+    void acquire(@Param("hash") String hash,
+                 @Param("storageKey") String storageKey,
+                 @Param("size") long size,
+                 @Param("contentType") String contentType,
+                 @Param("etag") String etag);
+
+    @Modifying
+    @Query(value = "update image_blob set ref_count = ref_count - 1, " +
+            "released_at = case when ref_count = 1 then now() else released_at end " +
+            "where hash = :hash and ref_count > 0",
+            nativeQuery = true)
+    void release(@Param("hash") String hash);
+
+    @Query("select b.previewKey from ImageBlob b where b.hash = :hash")
+    Optional<String> findPreviewKey(@Param("hash") String hash);
+
+    @Query("select b.hash from ImageBlob b where b.previewAttemptedAt is null and b.refCount > 0 and b.createdAt < :cutoff")
+    List<String> findPreviewPendingBefore(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Query("select b from ImageBlob b where b.refCount = 0 and b.releasedAt < :cutoff")
+    List<ImageBlob> findUnreferencedBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from ImageBlob b where b.hash = :hash and b.refCount = 0 and b.releasedAt < :cutoff")
+    int deleteIfUnreferencedBefore(@Param("hash") String hash, @Param("cutoff") Instant cutoff);
+
+}
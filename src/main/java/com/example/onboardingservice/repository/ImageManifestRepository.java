@@ -0,0 +1,43 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.model.ImageManifestEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageManifestRepository extends JpaRepository<ImageManifestEntry, Long> {
+
+    Optional<ImageManifestEntry> findByObjectKey(String objectKey);
+
+    boolean existsByObjectKey(String objectKey);
+
+    List<ImageManifestEntry> findByPrefixStartingWithOrderByObjectKey(String prefix);
+
+    List<ImageManifestEntry> findByPrefixInOrderByObjectKey(Collection<String> prefixes);
+
+    @Query("select e.objectKey from ImageManifestEntry e where e.contentHash = :contentHash")
+    List<String> findObjectKeysByContentHash(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("update ImageManifestEntry e set e.previewKey = :previewKey where e.contentHash = :contentHash")
+    int updatePreviewKey(@Param("contentHash") String contentHash, @Param("previewKey") String previewKey);
+
+    List<ImageManifestEntry> findByPrefix(String prefix);
+
+    /**
+     * Prefixes whose owner no longer exists or whose report was removed before the given day.
+     */
+    @Query("select distinct e.prefix from ImageManifestEntry e"
+            + " where not exists (select u.id from User u where u.email = e.ownerEmail)"
+            + " or exists (select r.id from Report r where r.id = e.reportId and r.removedAt < :removedBefore)"
+            + " order by e.prefix")
+    List<String> findOrphanPrefixes(@Param("removedBefore") LocalDate removedBefore, Pageable pageable);
+
+}
@@ -2,18 +2,36 @@ package com.example.onboardingservice.repository;
 
 import com.example.onboardingservice.model.Note;
 import com.example.onboardingservice.model.NoteType;
+import com.example.onboardingservice.model.dto.NoteDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
+    String NOTE_DTO = "new com.example.onboardingservice.model.dto.NoteDto(n.id, n.header, n.date, n.content)";
 
-    @Query("select n from Note n where n.recipient.email = :email and n.noteType = :noteType and n.removedAt is null")
+    @Query("select n from Note n where n.recipient.email = :email and n.noteType = :noteType and n.removedAt is null"
+            + " order by n.date desc, n.id desc")
     List<Note> findByRecipientAndNoteType(String email, NoteType noteType);
 
     @Query("select n from Note n where n.recipient.email = :email and n.noteType = 0 and n.id = :id and n.removedAt is null")
     Optional<Note> findMeetingNoteByRecipientAndId(String email, Long id);
 
+    @Query("select " + NOTE_DTO + " from Note n where n.recipient.email = :email and n.noteType = :noteType"
+            + " and n.removedAt is null order by n.date desc, n.id desc")
+    List<NoteDto> findDtosByRecipientAndNoteType(String email, NoteType noteType);
+
+    @Query("select " + NOTE_DTO + " from Note n where n.recipient.email = :email and n.noteType = :noteType"
+            + " and n.removedAt is null order by n.date desc, n.id desc")
+    List<NoteDto> findPageByRecipientAndNoteType(String email, NoteType noteType, Pageable pageable);
+
+    @Query("select " + NOTE_DTO + " from Note n where n.recipient.email = :email and n.noteType = :noteType"
+            + " and n.removedAt is null and (n.date < :date or (n.date = :date and n.id < :id))"
+            + " order by n.date desc, n.id desc")
+    List<NoteDto> findPageByRecipientAndNoteTypeAfter(String email, NoteType noteType, LocalDate date, Long id, Pageable pageable);
+
 }
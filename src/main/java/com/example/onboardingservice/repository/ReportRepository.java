@@ -1,18 +1,33 @@
 package com.example.onboardingservice.repository;
 
-import com.example.onboardingservice.model.Note;
-import com.example.onboardingservice.model.NoteType;
 import com.example.onboardingservice.model.Report;
+import com.example.onboardingservice.model.dto.ReportDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReportRepository extends JpaRepository<Report, Long> {
+    String REPORT_DTO = "new com.example.onboardingservice.model.dto.ReportDto(r.id, r.name, r.date)";
 
-    @Query("select r from Report r where r.recipient.email = :email and r.removedAt is null")
-    List<Report> findByRecipient(String email);
+    @Query("select " + REPORT_DTO + " from Report r where r.recipient.email = :email and r.removedAt is null"
+            + " order by r.date desc, r.id desc")
+    List<ReportDto> findDtosByRecipient(String email);
+
+    @Query("select " + REPORT_DTO + " from Report r where r.recipient.email = :email and r.removedAt is null"
+            + " order by r.date desc, r.id desc")
+    List<ReportDto> findPageByRecipient(String email, Pageable pageable);
+
+    @Query("select " + REPORT_DTO + " from Report r where r.recipient.email = :email and r.removedAt is null"
+            + " and (r.date < :date or (r.date = :date and r.id < :id))"
+            + " order by r.date desc, r.id desc")
+    List<ReportDto> findPageByRecipientAfter(String email, LocalDate date, Long id, Pageable pageable);
+
+    @Query("select " + REPORT_DTO + " from Report r where r.recipient.email = :email and r.id = :id and r.removedAt is null")
+    Optional<ReportDto> findDtoByRecipientAndId(String email, Long id);
 
     @Query("select r from Report r where r.recipient.email = :email and r.id = :id and r.removedAt is null")
     Optional<Report> findByRecipientAndId(String email, Long id);
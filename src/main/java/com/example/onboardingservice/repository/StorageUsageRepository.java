@@ -0,0 +1,63 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.model.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into storage_usage (scope, owner_email, report_id, bytes, objects, updated_at) " +
+            "values (:scope, :ownerEmail, null, :bytes, :objects, now()) " +
+            "on conflict (scope) do update set bytes = storage_usage.bytes + excluded.bytes, " +
+            "objects = storage_usage.objects + excluded.objects, updated_at = now()",
+            nativeQuery = true)
+    void addToClient(@Param("scope") String scope,
+                     @Param("ownerEmail") String ownerEmail,
+                     @Param("bytes") long bytes,
+                     @Param("objects") long objects);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into storage_usage (scope, owner_email, report_id, bytes, objects, updated_at) " +
+            "values (:scope, :ownerEmail, :reportId, :bytes, :objects, now()) " +
+            "on conflict (scope) do update set bytes = storage_usage.bytes + excluded.bytes, " +
+            "objects = storage_usage.objects + excluded.objects, updated_at = now()",
+            nativeQuery = true)
+    void addToReport(@Param("scope") String scope,
+                     @Param("ownerEmail") String ownerEmail,
+                     @Param("reportId") long reportId,
+                     @Param("bytes") long bytes,
+                     @Param("objects") long objects);
+
+    @Query("select u from StorageUsage u where u.ownerEmail = :ownerEmail and u.reportId is not null")
+    List<StorageUsage> findReportsByOwnerEmail(@Param("ownerEmail") String ownerEmail);
+
+    @Modifying
+    @Query(value = "insert into storage_usage (scope, owner_email, report_id, bytes, objects, updated_at) " +
+            "select 'client/' || owner_email, owner_email, null, sum(size), count(*), now() " +
+            "from image_manifest group by owner_email " +
+            "on conflict (scope) do update set bytes = excluded.bytes, objects = excluded.objects, updated_at = now()",
+            nativeQuery = true)
+    int recountClients();
+
+    @Modifying
+    @Query(value = "insert into storage_usage (scope, owner_email, report_id, bytes, objects, updated_at) " +
+            "select 'report/' || report_id, min(owner_email), report_id, sum(size), count(*), now() " +
+            "from image_manifest where report_id is not null group by report_id " +
+            "on conflict (scope) do update set bytes = excluded.bytes, objects = excluded.objects, updated_at = now()",
+            nativeQuery = true)
+    int recountReports();
+
+    @Modifying
+    @Query(value = "delete from storage_usage u where not exists (select 1 from image_manifest e " +
+            "where (u.report_id is null and e.owner_email = u.owner_email) or e.report_id = u.report_id)",
+            nativeQuery = true)
+    int deleteEmpty();
+}
@@ -0,0 +1,28 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.model.UploadSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UploadSlotRepository extends JpaRepository<UploadSlot, String> {
+
+    /**
+     * Reserves the key for an upload session, taking over a slot that has expired. Returns 0 if
+     * another session holds the key. A single statement, so two sessions cannot both reserve it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into upload_slot (object_key, expires_at, created_at) values (:objectKey, :expiresAt, now()) " +
+            "on conflict (object_key) do update set expires_at = excluded.expires_at, created_at = excluded.created_at " +
+            "where upload_slot.expires_at < now()",
+            nativeQuery = true)
+    int reserve(@Param("objectKey") String objectKey, @Param("expiresAt") Instant expiresAt);
+
+    List<UploadSlot> findByObjectKeyStartingWith(String prefix);
+}
@@ -20,4 +20,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByRoleAndEmail(@Param("role") Role role, @Param("email") String email);
 
     void deleteByEmail(String email);
+
+    @Query("select c.id as id, c.email as email, c.fullName as fullName, c.activeStage as activeStage"
+            + " from Client c order by c.id")
+    List<ClientRow> findClientRows();
+
+    @Query("select c.id as clientId, a as item from Client c join c.formAnswers a order by c.id, index(a)")
+    List<ClientItem> findClientFormAnswers();
+
+    @Query("select c.id as clientId, s as item from Client c join c.onboardingStages s order by c.id, index(s)")
+    List<ClientItem> findClientOnboardingStages();
+
+    interface ClientRow {
+        Long getId();
+
+        String getEmail();
+
+        String getFullName();
+
+        Long getActiveStage();
+    }
+
+    /**
+     * One element of a client's collection.
+     */
+    interface ClientItem {
+        Long getClientId();
+
+        String getItem();
+    }
 }
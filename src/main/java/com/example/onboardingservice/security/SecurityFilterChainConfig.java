@@ -46,6 +46,9 @@ public class SecurityFilterChainConfig {
                         .permitAll()
                         .requestMatchers("/error")
                         .permitAll()
+                        // objects of the local storage backend are public like bucket objects, uploads are signed
+                        .requestMatchers("/storage/**")
+                        .permitAll()
                         .anyRequest()
                         .authenticated())
                 .sessionManagement(httpSecuritySessionManagementConfigurer -> httpSecuritySessionManagementConfigurer
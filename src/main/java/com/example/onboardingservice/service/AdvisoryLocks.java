@@ -0,0 +1,89 @@
+package com.example.onboardingservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Postgres session-level advisory locks, for jobs that must run on one node at a time. The lock is
+ * taken on a connection of its own and held until the lease is closed, so the job itself can commit
+ * as often as it likes and sleep without holding a transaction open. If the node dies the connection
+ * drops and Postgres releases the lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdvisoryLocks {
+    private final DataSource dataSource;
+
+    /**
+     * Empty if another session holds the lock.
+     */
+    public Optional<Lease> tryLock(long key) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = connection.prepareStatement("select pg_try_advisory_lock(?)")) {
+                statement.setLong(1, key);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next() && result.getBoolean(1)) {
+                        return Optional.of(new Lease(connection, key));
+                    }
+                }
+            }
+            connection.close();
+            return Optional.empty();
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("advisory lock " + key + " failed", e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("advisory_lock_connection_close_failed: " + e.getMessage());
+        }
+    }
+
+    public static final class Lease implements AutoCloseable {
+        private final Connection connection;
+        private final long key;
+
+        private Lease(Connection connection, long key) {
+            this.connection = connection;
+            this.key = key;
+        }
+
+        @Override
+        public void close() {
+            try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_unlock(?)")) {
+                statement.setLong(1, key);
+                statement.execute();
+            } catch (SQLException e) {
+                log.error("advisory_unlock_failed: " + key + " " + e.getMessage());
+                // the pool would hand the session out again with the lock still held; end it instead
+                try {
+                    connection.abort(Runnable::run);
+                } catch (SQLException abortFailed) {
+                    log.error("advisory_lock_connection_abort_failed: " + abortFailed.getMessage());
+                }
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ClientProfile;
+import com.example.onboardingservice.model.Note;
+import com.example.onboardingservice.model.NoteType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Caches client profiles and the useful info and contact details notes by client email, including
+ * the absence of one. Each cache holds at most client.profile-cache.max-entries entries for
+ * client.profile-cache.ttl-seconds; client.profile-cache.enabled=false turns both off.
+ * Writers invalidate a client through {@link #invalidateAfterCommit}, so readers never cache what
+ * another transaction has not committed yet.
+ */
+@Component
+public class ClientProfileCache {
+    private final boolean enabled;
+    private final Cache<String, Optional<ClientProfile>> profiles;
+    private final Cache<NoteKey, Optional<Note>> notes;
+
+    public ClientProfileCache(MeterRegistry meterRegistry,
+                              @Value("${client.profile-cache.enabled:true}") boolean enabled,
+                              @Value("${client.profile-cache.max-entries:10000}") long maxEntries,
+                              @Value("${client.profile-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.notes = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "client.profile");
+        CaffeineCacheMetrics.monitor(meterRegistry, notes, "client.notes");
+    }
+
+    public Optional<ClientProfile> getProfile(String email, Supplier<Optional<ClientProfile>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return profiles.get(email, key -> loader.get());
+    }
+
+    public Optional<Note> getNote(String email, NoteType noteType, Supplier<Optional<Note>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return notes.get(new NoteKey(email, noteType), key -> loader.get());
+    }
+
+    /**
+     * Drops everything cached for the client once the current transaction commits, or right away
+     * outside of one. Dropping waits for loads of the same keys in progress, so a load that read
+     * the state before the commit cannot stay behind.
+     */
+    public void invalidateAfterCommit(String email) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(email);
+            }
+        });
+    }
+
+    private void invalidate(String email) {
+        profiles.invalidate(email);
+        for (NoteType noteType : NoteType.values()) {
+            notes.invalidate(new NoteKey(email, noteType));
+        }
+    }
+
+    private record NoteKey(String email, NoteType noteType) {
+    }
+}
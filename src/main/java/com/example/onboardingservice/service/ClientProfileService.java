@@ -0,0 +1,51 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.exception.UserNotFoundException;
+import com.example.onboardingservice.model.ClientProfile;
+import com.example.onboardingservice.model.NoteType;
+import com.example.onboardingservice.model.Role;
+import com.example.onboardingservice.repository.ClientProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads client profiles from the {@link ClientProfile} read model and keeps it in sync. Every write
+ * to a client's form or to its useful info or contact details notes must call {@link #refresh}
+ * in its transaction; this also drops what {@link ClientProfileCache} holds for the client once
+ * the transaction commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClientProfileService {
+    private final ClientProfileRepository clientProfileRepository;
+    private final ClientProfileCache clientProfileCache;
+
+    /**
+     * Only reads: profiles are built by the V3 migration and on every write, so a missing one means
+     * the email is not a client's.
+     */
+    public ClientProfile getProfile(String email) throws UserNotFoundException {
+        return clientProfileCache.getProfile(email, () -> clientProfileRepository.findById(email))
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    public void refresh(String email) {
+        rebuild(email);
+        clientProfileCache.invalidateAfterCommit(email);
+    }
+
+    private void rebuild(String email) {
+        int rows = clientProfileRepository.refresh(email,
+                Role.CLIENT.ordinal(), NoteType.USEFUL_INFO.ordinal(), NoteType.CONTACT_DETAILS.ordinal());
+        if (rows == 0) {
+            log.info("client_profile_not_refreshed: " + email);
+        }
+    }
+
+    public void delete(String email) {
+        clientProfileRepository.deleteById(email);
+        clientProfileCache.invalidateAfterCommit(email);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.exception.InvalidUploadException;
+import com.example.onboardingservice.exception.QuotaExceededException;
+import com.example.onboardingservice.model.FileFormat;
+import com.example.onboardingservice.model.UploadSlot;
+import com.example.onboardingservice.model.dto.ImageUploadResult;
+import com.example.onboardingservice.model.dto.UploadFileDto;
+import com.example.onboardingservice.model.dto.UploadSlotDto;
+import com.example.onboardingservice.repository.UploadSlotRepository;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import com.example.onboardingservice.service.storage.PresignedUpload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Uploads that bypass the application: clients PUT the bytes straight into the bucket with
+ * pre-signed URLs and then report completion, and only then are the objects checked and registered.
+ * The object keys are derived from the prefix and the file names; a key is only signed while nothing
+ * is stored or recorded under it, and is reserved as an {@link UploadSlot} so that completion acts on
+ * signed keys only. Objects that were uploaded but never completed are checked by the manifest
+ * reconciliation once their slot has expired.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DirectUploadService {
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+    private final ObjectStorage objectStorage;
+    private final ImageManifestService imageManifestService;
+    private final ImageListingCache imageListingCache;
+    private final ZipArchiveCache zipArchiveCache;
+    private final StorageUsageService storageUsageService;
+    private final UploadSlotRepository uploadSlotRepository;
+    @Qualifier("imageUploadExecutor")
+    private final ExecutorService imageUploadExecutor;
+    @Value("${storage.upload.direct.url-ttl-seconds:900}")
+    private long urlTtlSeconds;
+    @Value("${storage.upload.direct.max-file-bytes:104857600}")
+    private long maxFileBytes;
+
+    public List<UploadSlotDto> createMediaAssetsSession(List<UploadFileDto> files, String clientEmail)
+            throws InvalidUploadException, QuotaExceededException {
+        validateSession(files, "media-assets", clientEmail);
+        checkQuota(files, clientEmail);
+        return createSession(files, "media-assets", clientEmail);
+    }
+
+    public List<UploadSlotDto> createPaidAdvertisingReportSession(List<UploadFileDto> files, String clientEmail, Long reportId)
+            throws InvalidUploadException, QuotaExceededException {
+        validateSession(files, "paid-advertising-reports", clientEmail, reportId.toString());
+        checkQuota(files, clientEmail);
+        return createSession(files, "paid-advertising-reports", clientEmail, reportId.toString());
+    }
+
+    /**
+     * Against the declared sizes, which {@link #validateSession} has checked.
+     */
+    private void checkQuota(List<UploadFileDto> files, String clientEmail) throws QuotaExceededException {
+        storageUsageService.checkQuota(clientEmail, files.stream().mapToLong(UploadFileDto::getSize).sum());
+    }
+
+    public List<ImageUploadResult> completeMediaAssets(List<String> filenames, String clientEmail)
+            throws InvalidUploadException {
+        return complete(filenames, "media-assets", clientEmail);
+    }
+
+    public List<ImageUploadResult> completePaidAdvertisingReport(List<String> filenames, String clientEmail, Long reportId)
+            throws InvalidUploadException {
+        return complete(filenames, "paid-advertising-reports", clientEmail, reportId.toString());
+    }
+
+    private void validateSession(List<UploadFileDto> files, String... dirPath) throws InvalidUploadException {
+        if (files == null || files.isEmpty()) {
+            throw new InvalidUploadException("no_files");
+        }
+        Set<String> filenames = new HashSet<>();
+        for (UploadFileDto file : files) {
+            validateFilename(file.getFilename());
+            if (!filenames.add(file.getFilename())) {
+                throw new InvalidUploadException("duplicate_filename: " + file.getFilename());
+            }
+            if (file.getSize() <= 0 || file.getSize() > maxFileBytes) {
+                throw new InvalidUploadException("invalid_size: " + file.getFilename());
+            }
+            if (!contentType(file).startsWith("image/")) {
+                throw new InvalidUploadException("unsupported_content_type: " + file.getFilename());
+            }
+        }
+
+        String dir = String.join("/", dirPath) + "/";
+        for (UploadFileDto file : files) {
+            // a signed PUT would silently replace whatever is stored under the key
+            String key = dir + file.getFilename();
+            if (imageManifestService.isRecorded(key) || objectStorage.head(key).isPresent()) {
+                throw new InvalidUploadException("filename_taken: " + file.getFilename());
+            }
+        }
+    }
+
+    /**
+     * Reserves a slot and signs one PUT per file; the client has to send the returned headers with it.
+     * Fails if another session reserved one of the keys since {@link #validateSession}.
+     */
+    private List<UploadSlotDto> createSession(List<UploadFileDto> files, String... dirPath) throws InvalidUploadException {
+        String dir = String.join("/", dirPath) + "/";
+        Instant expiresAt = Instant.now().plus(Duration.ofSeconds(urlTtlSeconds));
+        List<String> reserved = new ArrayList<>();
+        for (UploadFileDto file : files) {
+            String key = dir + file.getFilename();
+            if (uploadSlotRepository.reserve(key, expiresAt) == 0) {
+                uploadSlotRepository.deleteAllById(reserved);
+                throw new InvalidUploadException("filename_taken: " + file.getFilename());
+            }
+            reserved.add(key);
+        }
+        List<UploadSlotDto> slots = new ArrayList<>();
+        for (UploadFileDto file : files) {
+            String key = dir + file.getFilename();
+            PresignedUpload upload = objectStorage.presignPut(key, contentType(file), CACHE_CONTROL, expiresAt);
+            slots.add(UploadSlotDto.builder()
+                    .filename(file.getFilename())
+                    .objectKey(key)
+                    .uploadUrl(upload.getUrl())
+                    .headers(upload.getHeaders())
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+        log.info("upload_session_created: " + String.join("/", dirPath) + " files: " + slots.size());
+        return slots;
+    }
+
+    /**
+     * Checks each object with a HEAD and a read of its first bytes (concurrently, the files are independent)
+     * and registers the ones that made it. Objects above the size limit or not recognised as images
+     * are deleted rather than registered. File names without an upload slot are refused untouched.
+     */
+    private List<ImageUploadResult> complete(List<String> filenames, String... dirPath) throws InvalidUploadException {
+        if (filenames == null || filenames.isEmpty()) {
+            throw new InvalidUploadException("no_files");
+        }
+        for (String filename : filenames) {
+            validateFilename(filename);
+        }
+        List<CompletableFuture<ImageUploadResult>> results = new ArrayList<>();
+        for (String filename : filenames) {
+            results.add(CompletableFuture.supplyAsync(() -> register(filename, dirPath), imageUploadExecutor));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    private ImageUploadResult register(String filename, String... dirPath) {
+        String key = String.join("/", dirPath) + "/" + filename;
+        Optional<UploadSlot> slot = uploadSlotRepository.findById(key);
+        if (slot.isEmpty()) {
+            return failed(filename, "no_upload_slot");
+        }
+        try {
+            Optional<ObjectInfo> object = objectStorage.head(key);
+            if (object.isEmpty()) {
+                return failed(filename, "not_uploaded");
+            }
+            if (object.get().getSize() > maxFileBytes) {
+                objectStorage.delete(key);
+                uploadSlotRepository.delete(slot.get());
+                log.error("direct_upload_too_large: " + key + " " + object.get().getSize());
+                return failed(filename, "file_too_large");
+            }
+            // the signed content type is the client's claim, the leading bytes tell what was stored
+            Optional<FileFormat> format = FileFormat.detect(objectStorage.readPrefix(key, FileFormat.SIGNATURE_LENGTH))
+                    .filter(FileFormat::isImage);
+            if (format.isEmpty()) {
+                objectStorage.delete(key);
+                uploadSlotRepository.delete(slot.get());
+                log.error("direct_upload_not_an_image: " + key);
+                return failed(filename, "unsupported_format");
+            }
+            imageManifestService.recordStored(key, object.get().getSize(), format.get().getMimeType(), object.get().getEtag());
+            uploadSlotRepository.delete(slot.get());
+            log.info("direct_upload_registered: " + key);
+        } catch (IOException | RuntimeException e) {
+            log.error("direct_upload_failed: " + key + " " + e.getMessage());
+            return failed(filename, e.getMessage());
+        } finally {
+            imageListingCache.invalidate(key);
+            zipArchiveCache.invalidate(key);
+        }
+        return ImageUploadResult.builder()
+                .filename(filename)
+                .uploaded(true)
+                .build();
+    }
+
+    private static ImageUploadResult failed(String filename, String error) {
+        return ImageUploadResult.builder()
+                .filename(filename)
+                .uploaded(false)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * The file name becomes the last segment of the object key, so it must be a single, real segment.
+     * Shared with the multipart uploads of {@link ImageService}.
+     */
+    static void validateFilename(String filename) throws InvalidUploadException {
+        if (filename == null
+                || filename.isBlank()
+                || filename.contains("/")
+                || filename.contains("\\")
+                || filename.equals(".")
+                || filename.equals("..")) {
+            throw new InvalidUploadException("invalid_filename: " + filename);
+        }
+    }
+
+    private static String contentType(UploadFileDto file) {
+        if (file.getContentType() != null && !file.getContentType().isBlank()) {
+            return file.getContentType();
+        }
+        String guessed = URLConnection.guessContentTypeFromName(file.getFilename());
+        return guessed != null ? guessed : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageBlob;
+import com.example.onboardingservice.repository.ImageBlobRepository;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage of image bytes: every distinct content is stored once under
+ * blobs/{sha256} and shared by all manifest entries with that content.
+ * Blobs nobody references any more are removed after a grace period.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageBlobService {
+    public static final String BLOB_ROOT = "blobs/";
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final ObjectStorage objectStorage;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${storage.blobs.gc-grace-ms:86400000}")
+    private long gcGraceMs;
+
+    public static String storageKey(String hash) {
+        return BLOB_ROOT + hash;
+    }
+
+    /**
+     * SHA-256 of the stream, read to the end. Upload parts are already spooled locally by the
+     * servlet container, so hashing them first costs a local read, not a second transfer.
+     */
+    public static String hash(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, digest)) {
+            digestInputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The stored blob with this content, if it is referenced. Unreferenced blobs are not reused:
+     * they may be collected while the upload that would reuse them is still running.
+     */
+    public Optional<ImageBlob> findReusable(String hash) {
+        return imageBlobRepository.findById(hash)
+                .filter(blob -> blob.getRefCount() > 0);
+    }
+
+    @Scheduled(initialDelayString = "${storage.blobs.gc-initial-delay-ms:60000}",
+            fixedDelayString = "${storage.blobs.gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(gcGraceMs));
+        int removed = 0;
+        for (ImageBlob blob : imageBlobRepository.findUnreferencedBefore(cutoff)) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> remove(blob, cutoff)))) {
+                    removed++;
+                }
+            } catch (RuntimeException e) {
+                log.error("blob_gc_failed: " + blob.getStorageKey() + " " + e.getMessage());
+            }
+        }
+        log.info("blob_gc_finished: removed: " + removed);
+    }
+
+    /**
+     * Runs in a transaction holding the hash lock, which {@link ImageManifestService#record} takes too,
+     * so a reference to the same content cannot be recorded between dropping the row and deleting the
+     * objects. An upload whose bytes are deleted here before it records its reference puts them again,
+     * see {@link #isStored}.
+     */
+    private boolean remove(ImageBlob blob, Instant cutoff) {
+        imageBlobRepository.lock(blob.getHash());
+        if (imageBlobRepository.deleteIfUnreferencedBefore(blob.getHash(), cutoff) == 0) {
+            return false;
+        }
+        if (reuploadedSince(blob.getStorageKey(), cutoff)) {
+            // the same content was uploaded again and is about to be recorded, keep the object
+            return false;
+        }
+        objectStorage.delete(blob.getStorageKey());
+        if (blob.getPreviewKey() != null) {
+            objectStorage.delete(blob.getPreviewKey());
+        }
+        return true;
+    }
+
+    /**
+     * Whether the blob's object is still there after its reference has been recorded. Recording holds
+     * the hash lock until its transaction ends and the collection leaves referenced blobs alone after that,
+     * so a miss here means a collection removed the bytes while the upload was in flight and they have
+     * to be put again.
+     */
+    public boolean isStored(String hash) {
+        return objectStorage.head(storageKey(hash)).isPresent();
+    }
+
+    private boolean reuploadedSince(String storageKey, Instant cutoff) {
+        return objectStorage.head(storageKey)
+                .map(ObjectInfo::getLastModified)
+                .filter(lastModified -> lastModified.isAfter(cutoff))
+                .isPresent();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Caches image listings by prefix. Entries expire after storage.listing-cache.ttl-seconds and
+ * the cache holds at most storage.listing-cache.max-entries prefixes; writes invalidate every
+ * cached prefix of the written key.
+ */
+@Component
+public class ImageListingCache {
+    private final boolean enabled;
+    private final Cache<String, List<ImageManifestEntry>> cache;
+
+    public ImageListingCache(MeterRegistry meterRegistry,
+                             @Value("${storage.listing-cache.enabled:true}") boolean enabled,
+                             @Value("${storage.listing-cache.max-entries:10000}") long maxEntries,
+                             @Value("${storage.listing-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "storage.listing");
+    }
+
+    public List<ImageManifestEntry> get(String prefix, Function<String, List<ImageManifestEntry>> loader) {
+        if (!enabled) {
+            return loader.apply(prefix);
+        }
+        return cache.get(prefix, key -> List.copyOf(loader.apply(key)));
+    }
+
+    /**
+     * Listings of several prefixes; the ones not cached are loaded together. The loader must return
+     * every prefix it is given, with an empty list for those without images.
+     */
+    public Map<String, List<ImageManifestEntry>> getAll(Collection<String> prefixes,
+                                                        Function<Collection<String>, Map<String, List<ImageManifestEntry>>> loader) {
+        if (!enabled) {
+            return loader.apply(prefixes);
+        }
+        return cache.getAll(prefixes, missing -> {
+            Map<String, List<ImageManifestEntry>> loaded = new HashMap<>();
+            loader.apply(Set.copyOf(missing)).forEach((prefix, images) -> loaded.put(prefix, List.copyOf(images)));
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops every listing whose prefix covers the key, e.g. "a/b/c.jpg" drops "a", "a/", "a/b" and "a/b/".
+     * Invalidating exact keys (rather than scanning) also waits for a listing of that prefix that is
+     * being loaded right now, so a load racing the write cannot leave a stale entry behind.
+     */
+    public void invalidate(String objectKey) {
+        if (!enabled) {
+            return;
+        }
+        for (int i = objectKey.indexOf('/'); i >= 0; i = objectKey.indexOf('/', i + 1)) {
+            cache.invalidate(objectKey.substring(0, i));
+            cache.invalidate(objectKey.substring(0, i + 1));
+        }
+        cache.invalidate(objectKey);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageBlob;
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.repository.ImageBlobRepository;
+import com.example.onboardingservice.repository.ImageManifestRepository;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class ImageManifestService {
+    private final ImageManifestRepository imageManifestRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final StorageUsageService storageUsageService;
+
+    /**
+     * Every image whose key starts with the prefix, in key order (the order a bucket listing would give).
+     */
+    public List<ImageManifestEntry> list(String prefix) {
+        return imageManifestRepository.findByPrefixStartingWithOrderByObjectKey(prefix);
+    }
+
+    public boolean isRecorded(String objectKey) {
+        return imageManifestRepository.existsByObjectKey(objectKey);
+    }
+
+    /**
+     * The images directly in each of the prefixes, in key order, keyed by prefix. Unlike {@link #list}
+     * this does not descend into nested prefixes, so it is meant for leaf directories such as a report's.
+     */
+    public Map<String, List<ImageManifestEntry>> listAll(Collection<String> prefixes) {
+        Map<String, List<ImageManifestEntry>> images = new HashMap<>();
+        prefixes.forEach(prefix -> images.put(prefix, new ArrayList<>()));
+        if (!prefixes.isEmpty()) {
+            imageManifestRepository.findByPrefixInOrderByObjectKey(prefixes)
+                    .forEach(entry -> images.get(entry.getPrefix()).add(entry));
+        }
+        return images;
+    }
+
+    /**
+     * Points the object key at the blob with the given content and moves the reference count
+     * from the blob the key pointed at before, if any.
+     */
+    @Transactional
+    public void record(String objectKey, long size, String contentType, String contentHash, String etag) {
+        ImageManifestEntry entry = imageManifestRepository.findByObjectKey(objectKey)
+                .orElseGet(() -> fromKey(objectKey));
+        String storageKey = ImageBlobService.storageKey(contentHash);
+        imageBlobRepository.lock(contentHash);
+        imageBlobRepository.acquire(contentHash, storageKey, size, contentType, normalizeEtag(etag));
+        entry.setPreviewKey(imageBlobRepository.findPreviewKey(contentHash).orElse(null));
+        if (entry.getContentHash() != null) {
+            imageBlobRepository.release(entry.getContentHash());
+        }
+        storageUsageService.add(entry, size - entry.getSize(), entry.getId() == null ? 1 : 0);
+        entry.setSize(size);
+        entry.setContentType(contentType);
+        entry.setEtag(normalizeEtag(etag));
+        entry.setContentHash(contentHash);
+        entry.setStorageKey(storageKey);
+        entry.setUploadedAt(Instant.now());
+        imageManifestRepository.save(entry);
+    }
+
+    /**
+     * Records an object stored under its own key, as direct uploads are. Drops the blob
+     * reference the key held before, if any.
+     */
+    @Transactional
+    public void recordStored(String objectKey, long size, String contentType, String etag) {
+        ImageManifestEntry entry = imageManifestRepository.findByObjectKey(objectKey)
+                .orElseGet(() -> fromKey(objectKey));
+        if (entry.getContentHash() != null) {
+            imageBlobRepository.release(entry.getContentHash());
+        }
+        storageUsageService.add(entry, size - entry.getSize(), entry.getId() == null ? 1 : 0);
+        entry.setSize(size);
+        entry.setContentType(contentType);
+        entry.setEtag(normalizeEtag(etag));
+        entry.setContentHash(null);
+        entry.setStorageKey(null);
+        entry.setPreviewKey(null);
+        entry.setUploadedAt(Instant.now());
+        imageManifestRepository.save(entry);
+    }
+
+    /**
+     * Marks preview generation of the blob as done and, if it produced a preview, hands the preview
+     * to every entry with that content. Returns the keys of those entries.
+     */
+    @Transactional
+    public List<String> recordPreview(String contentHash, String previewKey) {
+        Optional<ImageBlob> blob = imageBlobRepository.findById(contentHash);
+        if (blob.isEmpty()) {
+            return List.of();
+        }
+        blob.get().setPreviewKey(previewKey);
+        blob.get().setPreviewAttemptedAt(Instant.now());
+        if (previewKey == null) {
+            return List.of();
+        }
+        imageManifestRepository.updatePreviewKey(contentHash, previewKey);
+        return imageManifestRepository.findObjectKeysByContentHash(contentHash);
+    }
+
+    /**
+     * Removes the entries whose objects were purged from the bucket, with their blob references and usage,
+     * in a transaction of their own. Entries already gone are skipped. If this fails, the entries stay
+     * and the next purge, finding their objects already deleted, removes them.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void removePurged(Collection<Long> entryIds) {
+        List<ImageManifestEntry> entries = imageManifestRepository.findAllById(entryIds);
+        for (ImageManifestEntry entry : entries) {
+            if (entry.getContentHash() != null) {
+                imageBlobRepository.release(entry.getContentHash());
+            }
+            storageUsageService.add(entry, -entry.getSize(), -1);
+        }
+        imageManifestRepository.deleteAll(entries);
+    }
+
+    /**
+     * Removes the entry of an object that is gone from the bucket. Entries recorded at or after
+     * {@code settledBefore}, or backed by a shared blob, are left alone. Returns whether it was removed.
+     */
+    @Transactional
+    public boolean removeMissing(Long entryId, Instant settledBefore) {
+        Optional<ImageManifestEntry> entry = imageManifestRepository.findById(entryId)
+                .filter(found -> isSettled(found, settledBefore));
+        if (entry.isEmpty()) {
+            return false;
+        }
+        imageManifestRepository.delete(entry.get());
+        storageUsageService.add(entry.get(), -entry.get().getSize(), -1);
+        return true;
+    }
+
+    /**
+     * Takes the size and etag of the stored object, under the same conditions as {@link #removeMissing}.
+     * Returns whether the entry changed.
+     */
+    @Transactional
+    public boolean resync(Long entryId, ObjectInfo object, Instant settledBefore) {
+        Optional<ImageManifestEntry> entry = imageManifestRepository.findById(entryId)
+                .filter(found -> isSettled(found, settledBefore));
+        if (entry.isEmpty()
+                || (object.getSize() == entry.get().getSize()
+                && Objects.equals(normalizeEtag(object.getEtag()), entry.get().getEtag()))) {
+            return false;
+        }
+        storageUsageService.add(entry.get(), object.getSize() - entry.get().getSize(), 0);
+        entry.get().setSize(object.getSize());
+        entry.get().setEtag(normalizeEtag(object.getEtag()));
+        imageManifestRepository.save(entry.get());
+        return true;
+    }
+
+    /**
+     * Registers an object found in the bucket without an entry, unless one was recorded meanwhile.
+     * The caller has checked the content. Returns whether it was registered.
+     */
+    @Transactional
+    public boolean recordDiscovered(ObjectInfo object, String contentType) {
+        if (imageManifestRepository.findByObjectKey(object.getKey()).isPresent()) {
+            return false;
+        }
+        ImageManifestEntry entry = fromKey(object.getKey());
+        entry.setSize(object.getSize());
+        entry.setContentType(contentType);
+        entry.setEtag(normalizeEtag(object.getEtag()));
+        entry.setUploadedAt(object.getLastModified());
+        imageManifestRepository.save(entry);
+        storageUsageService.add(entry, entry.getSize(), 1);
+        return true;
+    }
+
+    private static boolean isSettled(ImageManifestEntry entry, Instant settledBefore) {
+        return entry.getContentHash() == null
+                && (entry.getUploadedAt() == null || entry.getUploadedAt().isBefore(settledBefore));
+    }
+
+    /**
+     * Keys look like media-assets/{email}/{file} or paid-advertising-reports/{email}/{reportId}/{file}.
+     */
+    private static ImageManifestEntry fromKey(String objectKey) {
+        String[] segments = objectKey.split("/");
+        Long reportId = null;
+        if (segments[0].equals("paid-advertising-reports")
+                && segments.length >= 4
+                && StringUtils.isNumeric(segments[2])) {
+            reportId = Long.valueOf(segments[2]);
+        }
+        return ImageManifestEntry.builder()
+                .objectKey(objectKey)
+                .prefix(objectKey.substring(0, objectKey.lastIndexOf('/') + 1))
+                .ownerEmail(segments.length > 1 ? segments[1] : "")
+                .reportId(reportId)
+                .build();
+    }
+
+    private static String normalizeEtag(String etag) {
+        return etag == null ? null : etag.replace("\"", "");
+    }
+}
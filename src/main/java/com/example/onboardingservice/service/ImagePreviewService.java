@@ -0,0 +1,190 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.repository.ImageBlobRepository;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import com.example.onboardingservice.service.storage.StoredObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates downscaled JPEG previews of stored images for gallery screens. A preview is made once per
+ * blob, stored next to it as {storageKey}.preview.jpg, and handed to every manifest entry with that content.
+ * Work runs on {@code previewExecutor}, never on the upload request; blobs whose preview was dropped or
+ * lost (full queue, restart) are picked up by a periodic backfill.
+ */
+@Slf4j
+@Service
+public class ImagePreviewService {
+    public static final String PREVIEW_SUFFIX = ".preview.jpg";
+
+    private final ObjectStorage objectStorage;
+    private final ExecutorService previewExecutor;
+    private final ImageManifestService imageManifestService;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageListingCache imageListingCache;
+    private final int maxEdge;
+    private final float quality;
+    private final long maxSourcePixels;
+    private final int backfillBatchSize;
+    private final long backfillIntervalMs;
+
+    public ImagePreviewService(ObjectStorage objectStorage,
+                               @Qualifier("previewExecutor") ExecutorService previewExecutor,
+                               ImageManifestService imageManifestService,
+                               ImageBlobRepository imageBlobRepository,
+                               ImageListingCache imageListingCache,
+                               @Value("${storage.preview.max-edge:480}") int maxEdge,
+                               @Value("${storage.preview.quality:0.8}") float quality,
+                               @Value("${storage.preview.max-source-pixels:100000000}") long maxSourcePixels,
+                               @Value("${storage.preview.backfill-batch-size:100}") int backfillBatchSize,
+                               @Value("${storage.preview.backfill-interval-ms:600000}") long backfillIntervalMs) {
+        this.objectStorage = objectStorage;
+        this.previewExecutor = previewExecutor;
+        this.imageManifestService = imageManifestService;
+        this.imageBlobRepository = imageBlobRepository;
+        this.imageListingCache = imageListingCache;
+        this.maxEdge = maxEdge;
+        this.quality = quality;
+        this.maxSourcePixels = maxSourcePixels;
+        this.backfillBatchSize = backfillBatchSize;
+        this.backfillIntervalMs = backfillIntervalMs;
+    }
+
+    public static String previewKey(String storageKey) {
+        return storageKey + PREVIEW_SUFFIX;
+    }
+
+    /**
+     * Queues preview generation for the blob and returns immediately.
+     */
+    public void submit(String contentHash) {
+        previewExecutor.execute(() -> generate(contentHash));
+    }
+
+    @Scheduled(initialDelayString = "${storage.preview.backfill-initial-delay-ms:120000}",
+            fixedDelayString = "${storage.preview.backfill-interval-ms:600000}")
+    public void backfill() {
+        // blobs younger than the interval are most likely still queued from their upload
+        Instant cutoff = Instant.now().minus(Duration.ofMillis(backfillIntervalMs));
+        List<String> pending = imageBlobRepository.findPreviewPendingBefore(cutoff, PageRequest.of(0, backfillBatchSize));
+        pending.forEach(this::submit);
+        if (!pending.isEmpty()) {
+            log.info("preview_backfill_submitted: " + pending.size());
+        }
+    }
+
+    private void generate(String contentHash) {
+        String storageKey = ImageBlobService.storageKey(contentHash);
+        String previewKey = null;
+        try {
+            byte[] preview = render(storageKey);
+            if (preview != null) {
+                previewKey = previewKey(storageKey);
+                objectStorage.put(previewKey, new ByteArrayInputStream(preview), preview.length,
+                        "image/jpeg", "public, max-age=31536000, immutable");
+                log.info("preview_generated: " + previewKey + " " + preview.length);
+            } else {
+                log.info("preview_unsupported: " + storageKey);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("preview_failed: " + storageKey + " " + e.getMessage());
+            previewKey = null;
+        }
+        try {
+            for (String objectKey : imageManifestService.recordPreview(contentHash, previewKey)) {
+                imageListingCache.invalidate(objectKey);
+            }
+        } catch (RuntimeException e) {
+            log.error("preview_record_failed: " + storageKey + " " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encoded preview, or null if the format cannot be decoded or the image is too large to decode safely.
+     * Large sources are subsampled while decoding, so the full-resolution raster is never held in memory.
+     */
+    private byte[] render(String storageKey) throws IOException {
+        try (StoredObject object = objectStorage.get(storageKey);
+             ImageInputStream input = ImageIO.createImageInputStream(object.content())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                object.abort();
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    object.abort();
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // decode at no less than twice the target size, the final scale step smooths the rest
+                int subsampling = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return encode(scale(reader.read(0, param)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        // JPEG has no alpha: draw onto an opaque RGB canvas
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
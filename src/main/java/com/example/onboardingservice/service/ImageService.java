@@ -1,25 +1,44 @@
 package com.example.onboardingservice.service;
 
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.*;
 import com.example.onboardingservice.exception.DownloadingImagesException;
+import com.example.onboardingservice.exception.InvalidUploadException;
+import com.example.onboardingservice.exception.QuotaExceededException;
+import com.example.onboardingservice.model.FileFormat;
+import com.example.onboardingservice.model.ImageBlob;
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.model.dto.ImageUploadResult;
+import com.example.onboardingservice.model.dto.ImagesDto;
+import com.example.onboardingservice.model.dto.ZipArchiveDto;
+import com.example.onboardingservice.service.storage.ObjectStorage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriUtils;
 
-import java.io.*;
-import java.net.URI;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,120 +46,260 @@ import java.util.zip.ZipOutputStream;
 public class ImageService {
     @Value("${storage.base-url}")
     private String baseUrl;
-    @Value("${storage.root}")
-    private String bucket;
-    private final AmazonS3 s3;
+    private final ZipArchiveWriter zipArchiveWriter;
+    private final ZipArchiveCache zipArchiveCache;
+    private final ImageListingCache imageListingCache;
+    private final ImageManifestService imageManifestService;
+    private final ObjectStorage objectStorage;
+    private final ImageBlobService imageBlobService;
+    private final ImagePreviewService imagePreviewService;
+    private final StorageUsageService storageUsageService;
+    @Qualifier("imageUploadExecutor")
+    private final ExecutorService imageUploadExecutor;
+    @Value("${storage.upload.file-parallelism:4}")
+    private int uploadParallelism;
 
     @Transactional
-    public void uploadMediaAssets(MultipartFile[] files, String clientEmail) throws IOException {
-        saveImages(files, "media-assets", clientEmail);
+    public List<ImageUploadResult> uploadMediaAssets(MultipartFile[] files, String clientEmail) throws QuotaExceededException {
+        checkQuota(files, clientEmail);
+        return saveImages(files, "media-assets", clientEmail);
     }
 
     @Transactional
-    public void uploadPaidAdvertisingReport(MultipartFile[] files, String clientEmail, Long reportId) throws IOException {
-        saveImages(files,"paid-advertising-reports", clientEmail, reportId.toString());
+    public List<ImageUploadResult> uploadPaidAdvertisingReport(MultipartFile[] files, String clientEmail, Long reportId)
+            throws QuotaExceededException {
+        checkQuota(files, clientEmail);
+        return saveImages(files,"paid-advertising-reports", clientEmail, reportId.toString());
     }
 
+    private void checkQuota(MultipartFile[] files, String clientEmail) throws QuotaExceededException {
+        storageUsageService.checkQuota(clientEmail, Arrays.stream(files).mapToLong(MultipartFile::getSize).sum());
+    }
 
-    private void saveImages(MultipartFile[] files, String... dirPath) throws IOException {
+    /**
+     * Stores the bytes of the files concurrently, at most storage.upload.file-parallelism at a time per batch,
+     * then records them on the calling thread, in the caller's transaction: if it rolls back, so do the
+     * manifest entries, blob references and usage. Previews and cache invalidation wait for the commit.
+     * A failing file does not stop the others; the outcome of each file is reported in request order.
+     */
+    private List<ImageUploadResult> saveImages(MultipartFile[] files, String... dirPath) {
+        Semaphore permits = new Semaphore(uploadParallelism);
+        List<CompletableFuture<StoredImage>> uploads = new ArrayList<>();
         for (MultipartFile file : files) {
-            String filename = file.getOriginalFilename();
-            byte[] bI = file.getBytes();
-            InputStream fis = new ByteArrayInputStream(bI);
-
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(bI.length);
-            metadata.setContentType("jpg/jpeg/png");
-            metadata.setCacheControl("public, max-age=31536000");
-            String path = String.join("/", dirPath) + "/" + filename;
-            log.info("saving_image: " + path);
-            s3.putObject(bucket, path, fis, metadata);
-            s3.setObjectAcl(bucket, path, CannedAccessControlList.PublicRead);
+            permits.acquireUninterruptibly();
+            uploads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storeImage(file, dirPath);
+                } finally {
+                    permits.release();
+                }
+            }, imageUploadExecutor));
         }
+        List<ImageUploadResult> results = new ArrayList<>();
+        for (CompletableFuture<StoredImage> upload : uploads) {
+            results.add(recordImage(upload.join()));
+        }
+        return results;
     }
 
-    public List<String> getMediaAssets(String clientEmail) {
-        return getImageUrls("media-assets", clientEmail);
-
+    /**
+     * Checks the leading bytes of the part, which must be an image, and records the detected type.
+     * Hashes the part and stores its bytes only if no referenced blob has the same content yet;
+     * otherwise the object key will just be pointed at the existing blob. New content is streamed
+     * straight into storage.
+     */
+    private StoredImage storeImage(MultipartFile file, String... dirPath) {
+        String filename = file.getOriginalFilename();
+        try {
+            DirectUploadService.validateFilename(filename);
+        } catch (InvalidUploadException e) {
+            log.error("saving_image_failed: " + String.join("/", dirPath) + " " + e.getMessage());
+            return StoredImage.failed(file, filename, null, e.getMessage());
+        }
+        String path = String.join("/", dirPath) + "/" + filename;
+        log.info("saving_image: " + path);
+        try {
+            String contentHash;
+            FileFormat format;
+            try (PushbackInputStream inputStream = new PushbackInputStream(file.getInputStream(), FileFormat.SIGNATURE_LENGTH)) {
+                // a part that is no image is turned away after its first bytes, before hashing or uploading it
+                byte[] head = inputStream.readNBytes(FileFormat.SIGNATURE_LENGTH);
+                format = FileFormat.detect(head)
+                        .filter(FileFormat::isImage)
+                        .orElseThrow(() -> new InvalidUploadException("unsupported_format"));
+                inputStream.unread(head);
+                contentHash = ImageBlobService.hash(inputStream);
+            }
+            Optional<ImageBlob> blob = imageBlobService.findReusable(contentHash);
+            String contentType = format.getMimeType();
+            String etag;
+            if (blob.isPresent()) {
+                log.info("image_deduplicated: " + path + " " + contentHash);
+                etag = blob.get().getEtag();
+            } else {
+                etag = putBlob(file, contentHash, contentType);
+            }
+            return new StoredImage(file, filename, path, contentType, contentHash, etag, blob.isPresent(), null);
+        } catch (InvalidUploadException | IOException | RuntimeException e) {
+            log.error("saving_image_failed: " + path + " " + e.getMessage());
+            return StoredImage.failed(file, filename, path, e.getMessage());
+        }
     }
 
-    public List<String> getPaidAdvertisingReport(String clientEmail, Long reportId) {
-        return getImageUrls("paid-advertising-reports", clientEmail, reportId.toString());
+    /**
+     * Points the object key at the stored blob. The hash lock taken by recording is held until the caller
+     * commits, so a blob collection that removed the bytes while they were being stored has finished by now
+     * and none can start before the reference is visible; the bytes are put again if one did.
+     */
+    private ImageUploadResult recordImage(StoredImage image) {
+        if (image.error() != null) {
+            return failed(image.filename(), image.error());
+        }
+        try {
+            imageManifestService.record(image.path(), image.file().getSize(), image.contentType(),
+                    image.contentHash(), image.etag());
+            if (!image.deduplicated() && !imageBlobService.isStored(image.contentHash())) {
+                log.error("image_blob_collected_during_upload: " + image.path() + " " + image.contentHash());
+                putBlob(image.file(), image.contentHash(), image.contentType());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("saving_image_failed: " + image.path() + " " + e.getMessage());
+            return failed(image.filename(), e.getMessage());
+        } finally {
+            afterCommit(() -> {
+                imageListingCache.invalidate(image.path());
+                zipArchiveCache.invalidate(image.path());
+            });
+        }
+        if (!image.deduplicated()) {
+            afterCommit(() -> imagePreviewService.submit(image.contentHash()));
+        }
+        return ImageUploadResult.builder()
+                .filename(image.filename())
+                .uploaded(true)
+                .deduplicated(image.deduplicated())
+                .build();
     }
 
-    public long getPaidAdvertisingReportSize(String clientEmail, Long reportId) {
-        return getImagesSize("paid-advertising-reports", clientEmail, reportId.toString());
+    private String putBlob(MultipartFile file, String contentHash, String contentType) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return objectStorage.put(ImageBlobService.storageKey(contentHash), inputStream,
+                    file.getSize(), contentType, "public, max-age=31536000, immutable");
+        }
     }
 
-    private List<String> getImageUrls(String... dirPath) {
-        List<S3ObjectSummary> summaries = getImageSummaries(dirPath);
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        return summaries.stream()
-                .map(summary -> baseUrl + UriUtils.encode(summary.getKey(), "UTF-8"))
-                .collect(Collectors.toList());
+    private static ImageUploadResult failed(String filename, String error) {
+        return ImageUploadResult.builder()
+                .filename(filename)
+                .uploaded(false)
+                .error(error)
+                .build();
     }
 
-    private long getImagesSize(String... dirPath) {
-        List<S3ObjectSummary> summaries = getImageSummaries(dirPath);
+    /**
+     * A part whose bytes are in storage and wait to be recorded, or the reason they are not.
+     */
+    private record StoredImage(MultipartFile file, String filename, String path, String contentType,
+                               String contentHash, String etag, boolean deduplicated, String error) {
+        static StoredImage failed(MultipartFile file, String filename, String path, String error) {
+            return new StoredImage(file, filename, path, null, null, null, false, error);
+        }
+    }
 
-        return summaries.stream()
-                .mapToLong(S3ObjectSummary::getSize)
-                .sum();
+    public ImagesDto getMediaAssets(String clientEmail) {
+        return toImages(getImages("media-assets", clientEmail, ""));
     }
 
-    private List<S3ObjectSummary> getImageSummaries(String... dirPath) {
-        String prefix = String.join("/", dirPath);
-        ObjectListing listing = s3.listObjects(bucket, prefix);
-        List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+    public ImagesDto getPaidAdvertisingReport(String clientEmail, Long reportId) {
+        // the trailing "" ends the prefix with "/", so report 1 does not pick up the objects of report 10
+        return toImages(getImages("paid-advertising-reports", clientEmail, reportId.toString(), ""));
+    }
 
-        while (listing.isTruncated()) {
-            listing = s3.listNextBatchOfObjects(listing);
-            summaries.addAll(listing.getObjectSummaries());
+    /**
+     * Images of the given reports of the client, keyed by report id. The reports' prefixes are looked up
+     * together, so the cost follows the number of reports asked for rather than all the client ever uploaded.
+     */
+    public Map<Long, ImagesDto> getPaidAdvertisingReports(String clientEmail, Collection<Long> reportIds) {
+        Map<Long, String> prefixes = new HashMap<>();
+        for (Long reportId : reportIds) {
+            prefixes.put(reportId, String.join("/", "paid-advertising-reports", clientEmail, reportId.toString(), ""));
         }
-        return summaries;
+        Map<String, List<ImageManifestEntry>> listings = imageListingCache.getAll(prefixes.values(), imageManifestService::listAll);
+        Map<Long, ImagesDto> images = new HashMap<>();
+        prefixes.forEach((reportId, prefix) -> images.put(reportId, toImages(listings.get(prefix))));
+        return images;
     }
 
-    public byte[] getMediaAssetsZipped(String clientEmail) throws DownloadingImagesException {
-        return getImagesZipped("media-assets", clientEmail);
+    private ImagesDto toImages(List<ImageManifestEntry> images) {
+        return ImagesDto.builder()
+                .imageUrls(images.stream().map(this::toUrl).collect(Collectors.toList()))
+                .previewUrls(images.stream().map(this::toPreviewUrl).collect(Collectors.toList()))
+                .build();
     }
 
-    public byte[] getPaidAdvertisingReportZipped(String clientEmail, Long reportId) throws DownloadingImagesException {
-        return getImagesZipped("paid-advertising-reports", clientEmail, reportId.toString());
+    private String toUrl(ImageManifestEntry image) {
+        return baseUrl + UriUtils.encodePath(image.getStorageKey(), "UTF-8");
     }
 
+    private String toPreviewUrl(ImageManifestEntry image) {
+        return image.getPreviewKey() != null
+                ? baseUrl + UriUtils.encodePath(image.getPreviewKey(), "UTF-8")
+                : toUrl(image);
+    }
 
-    private byte[] getImagesZipped(String... dirPath) throws DownloadingImagesException {
-        String prefix = String.join("/", dirPath);
-        ObjectListing listing = s3.listObjects(bucket, prefix);
-        List<String> keys = new ArrayList<>(listing.getObjectSummaries().stream().map(S3ObjectSummary::getKey).toList());
+    private List<ImageManifestEntry> getImages(String... dirPath) {
+        return imageListingCache.get(String.join("/", dirPath), imageManifestService::list);
+    }
 
+    public ZipArchiveDto getMediaAssetsZipped(String clientEmail) throws DownloadingImagesException {
+        return getImagesZipped("media-assets", clientEmail, "");
+    }
 
-        while (listing.isTruncated()) {
-            listing = s3.listNextBatchOfObjects(listing);
-            keys.addAll(listing.getObjectSummaries().stream().map(S3ObjectSummary::getKey).toList());
-        }
+    public ZipArchiveDto getPaidAdvertisingReportZipped(String clientEmail, Long reportId) throws DownloadingImagesException {
+        return getImagesZipped("paid-advertising-reports", clientEmail, reportId.toString(), "");
+    }
 
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-             ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
-            for (String key : keys) {
-                String[] keyPathElements = key.split("/");
-                String fileName = keyPathElements[keyPathElements.length - 1];
-                ZipEntry zipEntry = new ZipEntry(fileName);
-                zipOutputStream.putNextEntry(zipEntry);
-
-                S3ObjectInputStream objectContent = s3.getObject(bucket, key).getObjectContent();
-                byte[] bytes = new byte[1024];
-                int length;
-                while ((length = objectContent.read(bytes)) >= 0) {
-                    zipOutputStream.write(bytes, 0, length);
-                }
-                objectContent.close();
-                zipOutputStream.closeEntry();
-            }
-            zipOutputStream.close();
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Looks the images up front (so a failure still maps to a proper error status) and returns
+     * the archive fingerprint with a body that serves the cached archive, or builds it while
+     * objects are fetched from storage and caches it on the way.
+     */
+    private ZipArchiveDto getImagesZipped(String... dirPath) throws DownloadingImagesException {
+        String prefix = String.join("/", dirPath);
+        List<ImageManifestEntry> images;
+        try {
+            images = getImages(dirPath);
+        } catch (DataAccessException e) {
+            log.error("listing_images_failed: " + prefix, e);
+            throw new DownloadingImagesException(e.getMessage());
         }
+        String fingerprint = zipArchiveCache.fingerprint(images);
+        StreamingResponseBody writer = out -> zipArchiveWriter.write(images, out);
+        return ZipArchiveDto.builder()
+                .etag(fingerprint)
+                .cachedFile(zipArchiveCache.find(prefix, fingerprint).orElse(null))
+                .body(outputStream -> {
+                    Optional<Path> cached = zipArchiveCache.find(prefix, fingerprint);
+                    if (cached.isPresent()) {
+                        Files.copy(cached.get(), outputStream);
+                    } else {
+                        zipArchiveCache.writeThrough(prefix, fingerprint, writer, outputStream);
+                    }
+                })
+                .rangesSupported(zipArchiveCache.isEnabled())
+                .build();
     }
-}
\ No newline at end of file
+}
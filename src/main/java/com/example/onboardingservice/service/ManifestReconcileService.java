@@ -0,0 +1,168 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.FileFormat;
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.model.UploadSlot;
+import com.example.onboardingservice.repository.UploadSlotRepository;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLConnection;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repairs drift between the manifest and the bucket: objects written or removed behind the
+ * application's back, and uploads that reached storage but failed to be recorded.
+ * One node runs a pass at a time, and each entry's manifest and usage change commits on its own,
+ * so a failure leaves the rest of the pass in place and the listing never runs inside a transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ManifestReconcileService {
+    /** Advisory lock key of the reconciliation, "onboard2" in ASCII. */
+    private static final long RECONCILE_LOCK = 0x6f6e626f61726432L;
+    private static final List<String> ROOTS = List.of("media-assets/", "paid-advertising-reports/");
+
+    private final ImageManifestService imageManifestService;
+    private final AdvisoryLocks advisoryLocks;
+    private final ObjectStorage objectStorage;
+    private final ImageListingCache imageListingCache;
+    private final UploadSlotRepository uploadSlotRepository;
+    @Value("${storage.upload.direct.max-file-bytes:104857600}")
+    private long maxFileBytes;
+
+    @Scheduled(initialDelayString = "${storage.manifest.reconcile-initial-delay-ms:10000}",
+            fixedDelayString = "${storage.manifest.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        Optional<AdvisoryLocks.Lease> lease = advisoryLocks.tryLock(RECONCILE_LOCK);
+        if (lease.isEmpty()) {
+            log.info("manifest_reconcile_skipped: locked");
+            return;
+        }
+        try (AdvisoryLocks.Lease ignored = lease.get()) {
+            for (String root : ROOTS) {
+                try {
+                    reconcile(root);
+                } catch (RuntimeException e) {
+                    log.error("manifest_reconcile_failed: " + root + " " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries recorded after the pass started are left alone, the listing may predate them.
+     * Entries backed by a shared blob are not under the listed roots and are left alone too.
+     * Objects found only in the bucket are registered. The exception are keys signed for a direct upload
+     * that was never completed: while the slot is open the upload may still complete and they are left
+     * alone, once it has expired they go through the checks completion would have run and are deleted
+     * if they fail them. Nothing else is ever deleted here, whatever it contains.
+     */
+    private void reconcile(String root) {
+        Instant startedAt = Instant.now();
+        Map<String, ObjectInfo> stored = new HashMap<>();
+        objectStorage.list(root).stream()
+                .filter(object -> !object.getKey().endsWith("/"))
+                .forEach(object -> stored.put(object.getKey(), object));
+        Map<String, UploadSlot> slots = new HashMap<>();
+        uploadSlotRepository.findByObjectKeyStartingWith(root)
+                .forEach(slot -> slots.put(slot.getObjectKey(), slot));
+
+        int added = 0;
+        int updated = 0;
+        int removed = 0;
+        int skipped = 0;
+        int rejected = 0;
+        int failed = 0;
+        for (ImageManifestEntry entry : imageManifestService.list(root)) {
+            ObjectInfo object = stored.remove(entry.getObjectKey());
+            try {
+                if (object == null) {
+                    if (imageManifestService.removeMissing(entry.getId(), startedAt)) {
+                        imageListingCache.invalidate(entry.getObjectKey());
+                        removed++;
+                    }
+                } else if (imageManifestService.resync(entry.getId(), object, startedAt)) {
+                    imageListingCache.invalidate(entry.getObjectKey());
+                    updated++;
+                }
+            } catch (RuntimeException e) {
+                log.error("manifest_reconcile_entry_failed: " + entry.getObjectKey() + " " + e.getMessage());
+                failed++;
+            }
+        }
+        for (ObjectInfo object : stored.values()) {
+            UploadSlot slot = slots.remove(object.getKey());
+            if (slot != null && slot.getExpiresAt().isAfter(startedAt)) {
+                skipped++;
+                continue;
+            }
+            try {
+                if (slot == null) {
+                    // stored before uploads were checked, or behind the application's back
+                    if (imageManifestService.recordDiscovered(object, contentType(object))) {
+                        imageListingCache.invalidate(object.getKey());
+                        added++;
+                    }
+                    continue;
+                }
+                Optional<FileFormat> format = checkUpload(object);
+                if (format.isEmpty()) {
+                    objectStorage.delete(object.getKey());
+                    log.error("manifest_reconcile_rejected: " + object.getKey());
+                    rejected++;
+                } else if (imageManifestService.recordDiscovered(object, format.get().getMimeType())) {
+                    imageListingCache.invalidate(object.getKey());
+                    added++;
+                }
+                uploadSlotRepository.delete(slot);
+            } catch (IOException | RuntimeException e) {
+                log.error("manifest_reconcile_entry_failed: " + object.getKey() + " " + e.getMessage());
+                failed++;
+            }
+        }
+        // the rest were never uploaded, or were completed during the pass
+        List<UploadSlot> expired = slots.values().stream()
+                .filter(slot -> slot.getExpiresAt().isBefore(startedAt))
+                .toList();
+        uploadSlotRepository.deleteAll(expired);
+        log.info("manifest_reconciled: " + root + " added: " + added + " updated: " + updated + " removed: " + removed
+                + " skipped: " + skipped + " rejected: " + rejected + " failed: " + failed);
+    }
+
+    /**
+     * The type told by the leading bytes, else the one the name suggests. Unrecognised objects are
+     * registered all the same, the bucket is the source of truth for what a client has stored.
+     */
+    private String contentType(ObjectInfo object) throws IOException {
+        Optional<FileFormat> format = FileFormat.detect(objectStorage.readPrefix(object.getKey(), FileFormat.SIGNATURE_LENGTH));
+        if (format.isPresent()) {
+            return format.get().getMimeType();
+        }
+        log.info("manifest_reconcile_unrecognised: " + object.getKey());
+        return URLConnection.guessContentTypeFromName(object.getKey());
+    }
+
+    /**
+     * As {@link DirectUploadService} checks a completed upload: empty if the object is above the
+     * size limit or its leading bytes are not an image.
+     */
+    private Optional<FileFormat> checkUpload(ObjectInfo object) throws IOException {
+        if (object.getSize() > maxFileBytes) {
+            return Optional.empty();
+        }
+        return FileFormat.detect(objectStorage.readPrefix(object.getKey(), FileFormat.SIGNATURE_LENGTH))
+                .filter(FileFormat::isImage);
+    }
+}
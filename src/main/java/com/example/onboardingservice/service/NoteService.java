@@ -4,14 +4,20 @@ import com.example.onboardingservice.exception.*;
 import com.example.onboardingservice.model.Client;
 import com.example.onboardingservice.model.Note;
 import com.example.onboardingservice.model.NoteType;
+import com.example.onboardingservice.model.dto.NoteDto;
+import com.example.onboardingservice.model.dto.PageCursor;
+import com.example.onboardingservice.model.dto.PageDto;
 import com.example.onboardingservice.repository.NoteRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -19,14 +25,29 @@ import java.util.List;
 public class NoteService {
     private final NoteRepository noteRepository;
     private final UserService userService;
+    private final ClientProfileService clientProfileService;
+    private final ClientProfileCache clientProfileCache;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    public List<Note> listMeetingNotes(String email) {
-        return noteRepository
-                .findByRecipientAndNoteType(email, NoteType.MEETING_NOTES)
-                .stream()
-                .filter(note -> note.getRemovedAt() == null)
-                .sorted((n1, n2) -> n2.getDate().compareTo(n1.getDate()))
-                .toList();
+    public List<NoteDto> listMeetingNotes(String email) {
+        return noteRepository.findDtosByRecipientAndNoteType(email, NoteType.MEETING_NOTES);
+    }
+
+    /**
+     * Meeting notes of the client, newest first, starting after the cursor (from the start if null).
+     */
+    public PageDto<NoteDto> listMeetingNotes(String email, String cursor, int limit) throws InvalidCursorException {
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<NoteDto> rows;
+        if (cursor == null) {
+            rows = noteRepository.findPageByRecipientAndNoteType(email, NoteType.MEETING_NOTES, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = noteRepository.findPageByRecipientAndNoteTypeAfter(
+                    email, NoteType.MEETING_NOTES, after.getDate(), after.getId(), pageable);
+        }
+        return PageDto.of(rows, pageSize, note -> new PageCursor(note.getDate(), note.getId()));
     }
 
     public Note findMeetingNoteById(String email, Long noteId) throws NoteNotFoundException {
@@ -34,13 +55,28 @@ public class NoteService {
     }
 
     public Note getUsefulInfo(String email) throws NoteNotFoundException {
-        List<Note> found = noteRepository.findByRecipientAndNoteType(email, NoteType.USEFUL_INFO);
-        return found.stream().findAny().orElseThrow(NoteNotFoundException::new);
+        return clientProfileCache.getNote(email, NoteType.USEFUL_INFO, () -> findSingletonNote(email, NoteType.USEFUL_INFO))
+                .orElseThrow(NoteNotFoundException::new);
     }
 
     public Note getContactDetails(String email) throws NoteNotFoundException {
-        List<Note> found = noteRepository.findByRecipientAndNoteType(email, NoteType.CONTACT_DETAILS);
-        return found.stream().findAny().orElseThrow(NoteNotFoundException::new);
+        return clientProfileCache.getNote(email, NoteType.CONTACT_DETAILS, () -> findSingletonNote(email, NoteType.CONTACT_DETAILS))
+                .orElseThrow(NoteNotFoundException::new);
+    }
+
+    /**
+     * A copy without the recipient, so the cached note is not an instance a session may still change.
+     */
+    private Optional<Note> findSingletonNote(String email, NoteType noteType) {
+        return noteRepository.findByRecipientAndNoteType(email, noteType).stream()
+                .findFirst()
+                .map(note -> Note.builder()
+                        .id(note.getId())
+                        .noteType(note.getNoteType())
+                        .header(note.getHeader())
+                        .date(note.getDate())
+                        .content(note.getContent())
+                        .build());
     }
 
     @Transactional
@@ -72,6 +108,7 @@ public class NoteService {
                 .orElseThrow(UserNotFoundException::new);
         existing.setContent(content);
         noteRepository.save(existing);
+        clientProfileService.refresh(recipientEmail);
     }
 
     @Transactional
@@ -84,6 +121,7 @@ public class NoteService {
                 .orElseThrow(UserNotFoundException::new);
         existing.setContent(content);
         noteRepository.save(existing);
+        clientProfileService.refresh(recipientEmail);
     }
 
 
@@ -98,6 +136,7 @@ public class NoteService {
             Note note = buildDefaultNote(type, client);
             save(note);
         }
+        clientProfileService.refresh(client.getEmail());
     }
 
     public Note buildDefaultNote(NoteType type, Client client) {
@@ -111,7 +150,7 @@ public class NoteService {
     }
 
     @Transactional
-    public List<Note> deleteMeetingNoteById(Long id)
+    public List<NoteDto> deleteMeetingNoteById(Long id)
             throws NoteNotFoundException, NoteCannotBeDeletedException {
         Note note = noteRepository.findById(id).orElseThrow(NoteNotFoundException::new);
         if (note.getNoteType() == NoteType.MEETING_NOTES) {
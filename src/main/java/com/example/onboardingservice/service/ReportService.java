@@ -1,6 +1,9 @@
 package com.example.onboardingservice.service;
 
+import com.example.onboardingservice.exception.InvalidCursorException;
+import com.example.onboardingservice.exception.InvalidUploadException;
 import com.example.onboardingservice.exception.JsonTooLongException;
+import com.example.onboardingservice.exception.QuotaExceededException;
 import com.example.onboardingservice.exception.ReportNotFoundException;
 import com.example.onboardingservice.exception.UserNotFoundException;
 import com.example.onboardingservice.exception.WrongListSize;
@@ -8,18 +11,27 @@ import com.example.onboardingservice.model.Client;
 import com.example.onboardingservice.model.Note;
 import com.example.onboardingservice.model.NoteType;
 import com.example.onboardingservice.model.Report;
+import com.example.onboardingservice.model.dto.ImageUploadResult;
+import com.example.onboardingservice.model.dto.ImagesDto;
+import com.example.onboardingservice.model.dto.PageCursor;
+import com.example.onboardingservice.model.dto.PageDto;
+import com.example.onboardingservice.model.dto.ReportDto;
 import com.example.onboardingservice.model.dto.ReportWithImagesDto;
+import com.example.onboardingservice.model.dto.UploadFileDto;
+import com.example.onboardingservice.model.dto.UploadSlotDto;
 import com.example.onboardingservice.repository.ReportRepository;
 import com.example.onboardingservice.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -28,43 +40,64 @@ public class ReportService {
     private final UserService userService;
     private final ReportRepository reportRepository;
     private final ImageService imageService;
+    private final DirectUploadService directUploadService;
+    private final StorageUsageService storageUsageService;
     private static final int BYTES_PER_KILOBYTE = 1000;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    private List<Report> listReports(String email) {
-        List<Report> reports = reportRepository.findByRecipient(email);
-        return reports.stream()
-                .filter(report -> report.getRemovedAt() == null)
-                .sorted((r1, r2) -> r2.getDate().compareTo(r1.getDate()))
-                .toList();
+    private List<ReportDto> listReports(String email) {
+        return reportRepository.findDtosByRecipient(email);
     }
 
-    public List<ReportWithImagesDto> listReportsWithImages(String email) {
-        return listReports(email).stream()
-                .map(report -> {
-                    List<String> imageUrls = imageService.getPaidAdvertisingReport(email, report.getId());
-                    long sizeBytes = imageService.getPaidAdvertisingReportSize(email, report.getId());
-                    return ReportWithImagesDto.builder()
-                            .reportId(report.getId())
-                            .reportData(report)
-                            .imageUrls(imageUrls)
-                            .sizeKb(sizeBytes / BYTES_PER_KILOBYTE)
-                            .build();
-                })
+    /**
+     * Reports of the client with their images, newest first, starting after the cursor (from the start if null).
+     * Images and sizes are looked up for the reports of the page only.
+     */
+    public PageDto<ReportWithImagesDto> listReportsWithImages(String email, String cursor, int limit)
+            throws InvalidCursorException {
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<ReportDto> rows;
+        if (cursor == null) {
+            rows = reportRepository.findPageByRecipient(email, pageable);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            rows = reportRepository.findPageByRecipientAfter(email, after.getDate(), after.getId(), pageable);
+        }
+        PageDto<ReportDto> page = PageDto.of(rows, pageSize, report -> new PageCursor(report.getDate(), report.getId()));
+        List<Long> reportIds = page.getItems().stream().map(ReportDto::getId).toList();
+        Map<Long, ImagesDto> images = imageService.getPaidAdvertisingReports(email, reportIds);
+        Map<Long, Long> sizes = storageUsageService.getReportBytes(reportIds);
+        List<ReportWithImagesDto> reports = page.getItems().stream()
+                .map(report -> toReportWithImages(
+                        report,
+                        images.get(report.getId()),
+                        sizes.getOrDefault(report.getId(), 0L)))
                 .toList();
+        return new PageDto<>(reports, page.getNextCursor());
     }
 
     public ReportWithImagesDto findReportById(String email, Long reportId) throws ReportNotFoundException {
-        Report reportData = reportRepository.findByRecipientAndId(email, reportId).orElseThrow(ReportNotFoundException::new);
+        ReportDto reportData = reportRepository.findDtoByRecipientAndId(email, reportId).orElseThrow(ReportNotFoundException::new);
+        return toReportWithImages(
+                reportData,
+                imageService.getPaidAdvertisingReport(email, reportId),
+                storageUsageService.getReportBytes(reportId));
+    }
+
+    private ReportWithImagesDto toReportWithImages(ReportDto report, ImagesDto images, long sizeBytes) {
         return ReportWithImagesDto.builder()
-                .reportData(reportData)
-                .reportId(reportId)
-                .imageUrls(imageService.getPaidAdvertisingReport(email, reportId))
-                .sizeKb(imageService.getPaidAdvertisingReportSize(email, reportId) / BYTES_PER_KILOBYTE)
+                .reportId(report.getId())
+                .reportData(report)
+                .imageUrls(images.getImageUrls())
+                .previewUrls(images.getPreviewUrls())
+                .sizeKb(sizeBytes / BYTES_PER_KILOBYTE)
                 .build();
     }
 
-    @Transactional
-    public void save(String clientEmail, String name, MultipartFile[] files) throws UserNotFoundException, IOException {
+    @Transactional(rollbackFor = QuotaExceededException.class)
+    public List<ImageUploadResult> save(String clientEmail, String name, MultipartFile[] files)
+            throws UserNotFoundException, QuotaExceededException {
         Client recipient = (Client) userService.findByEmail(clientEmail);
         Report report = Report.builder()
                 .recipient(recipient)
@@ -73,11 +106,23 @@ public class ReportService {
                 .build();
         Report saved = reportRepository.save(report);
         Long reportId = saved.getId();
-        imageService.uploadPaidAdvertisingReport(files, clientEmail, reportId);
+        return imageService.uploadPaidAdvertisingReport(files, clientEmail, reportId);
+    }
+
+    public List<UploadSlotDto> createUploadSession(String clientEmail, Long reportId, List<UploadFileDto> files)
+            throws ReportNotFoundException, InvalidUploadException, QuotaExceededException {
+        reportRepository.findByRecipientAndId(clientEmail, reportId).orElseThrow(ReportNotFoundException::new);
+        return directUploadService.createPaidAdvertisingReportSession(files, clientEmail, reportId);
+    }
+
+    public List<ImageUploadResult> completeUpload(String clientEmail, Long reportId, List<String> filenames)
+            throws ReportNotFoundException, InvalidUploadException {
+        reportRepository.findByRecipientAndId(clientEmail, reportId).orElseThrow(ReportNotFoundException::new);
+        return directUploadService.completePaidAdvertisingReport(filenames, clientEmail, reportId);
     }
 
     @Transactional
-    public List<Report> deleteReportById(Long id) throws ReportNotFoundException {
+    public List<ReportDto> deleteReportById(Long id) throws ReportNotFoundException {
         Report report = reportRepository.findById(id).orElseThrow(ReportNotFoundException::new);
         report.setRemovedAt(LocalDate.now());
         reportRepository.save(report);
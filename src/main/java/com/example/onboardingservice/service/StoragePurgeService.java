@@ -0,0 +1,134 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.repository.ImageManifestRepository;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Removes the stored images of deleted clients and removed reports, which the delete endpoints leave behind.
+ * Orphaned prefixes are found through the manifest (objects only in the bucket get there with the next
+ * reconciliation) and emptied with batch deletes, pausing between batches so the purge stays in the
+ * background of user traffic. Runs on one node at a time: the pass holds a Postgres advisory lock
+ * and other nodes skip it. No transaction stays open across the pass: the manifest changes of each
+ * prefix commit on their own once its objects are deleted, and the pauses run outside any transaction.
+ */
+@Slf4j
+@Service
+public class StoragePurgeService {
+    /** Advisory lock key of the purge, "onboard1" in ASCII. */
+    private static final long PURGE_LOCK = 0x6f6e626f61726431L;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final ImageManifestRepository imageManifestRepository;
+    private final ImageManifestService imageManifestService;
+    private final AdvisoryLocks advisoryLocks;
+    private final ObjectStorage objectStorage;
+    private final ImageListingCache imageListingCache;
+    private final ZipArchiveCache zipArchiveCache;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final int maxPrefixesPerRun;
+    private final int reportGraceDays;
+
+    public StoragePurgeService(ImageManifestRepository imageManifestRepository,
+                               ImageManifestService imageManifestService,
+                               AdvisoryLocks advisoryLocks,
+                               ObjectStorage objectStorage,
+                               ImageListingCache imageListingCache,
+                               ZipArchiveCache zipArchiveCache,
+                               @Value("${storage.purge.batch-size:1000}") int batchSize,
+                               @Value("${storage.purge.batch-pause-ms:1000}") long batchPauseMs,
+                               @Value("${storage.purge.max-prefixes-per-run:100}") int maxPrefixesPerRun,
+                               @Value("${storage.purge.report-grace-days:7}") int reportGraceDays) {
+        this.imageManifestRepository = imageManifestRepository;
+        this.imageManifestService = imageManifestService;
+        this.advisoryLocks = advisoryLocks;
+        this.objectStorage = objectStorage;
+        this.imageListingCache = imageListingCache;
+        this.zipArchiveCache = zipArchiveCache;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.batchPauseMs = batchPauseMs;
+        this.maxPrefixesPerRun = maxPrefixesPerRun;
+        this.reportGraceDays = reportGraceDays;
+    }
+
+    /**
+     * A pass that fails halfway is repeated by the next one; deleting a missing object is a no-op.
+     */
+    @Scheduled(initialDelayString = "${storage.purge.initial-delay-ms:300000}",
+            fixedDelayString = "${storage.purge.interval-ms:3600000}")
+    public void purge() {
+        Optional<AdvisoryLocks.Lease> lease = advisoryLocks.tryLock(PURGE_LOCK);
+        if (lease.isEmpty()) {
+            log.info("storage_purge_skipped: locked");
+            return;
+        }
+        try (AdvisoryLocks.Lease ignored = lease.get()) {
+            purgeOrphans();
+        }
+    }
+
+    private void purgeOrphans() {
+        // removed reports stay restorable for the grace period
+        LocalDate removedBefore = LocalDate.now().minusDays(reportGraceDays);
+        List<String> prefixes = imageManifestRepository.findOrphanPrefixes(removedBefore, PageRequest.of(0, maxPrefixesPerRun));
+        int deleted = 0;
+        for (int i = 0; i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            try {
+                if (i > 0) {
+                    Thread.sleep(batchPauseMs);
+                }
+                deleted += purge(prefix);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("storage_purge_interrupted: " + prefix);
+                break;
+            } catch (RuntimeException e) {
+                log.error("storage_purge_failed: " + prefix + " " + e.getMessage());
+            }
+        }
+        log.info("storage_purge_finished: prefixes: " + prefixes.size() + " objects: " + deleted);
+    }
+
+    private int purge(String prefix) throws InterruptedException {
+        List<ImageManifestEntry> entries = imageManifestRepository.findByPrefix(prefix);
+        TreeSet<String> keys = new TreeSet<>();
+        objectStorage.list(prefix).stream()
+                .map(ObjectInfo::getKey)
+                .forEach(keys::add);
+        // deduplicated entries keep their bytes in a shared blob, which the blob collector removes
+        entries.stream()
+                .filter(entry -> entry.getContentHash() == null)
+                .map(ImageManifestEntry::getObjectKey)
+                .forEach(keys::add);
+
+        List<String> sorted = new ArrayList<>(keys);
+        for (int from = 0; from < sorted.size(); from += batchSize) {
+            if (from > 0) {
+                Thread.sleep(batchPauseMs);
+            }
+            objectStorage.delete(sorted.subList(from, Math.min(from + batchSize, sorted.size())));
+        }
+
+        imageManifestService.removePurged(entries.stream().map(ImageManifestEntry::getId).toList());
+        for (ImageManifestEntry entry : entries) {
+            imageListingCache.invalidate(entry.getObjectKey());
+            zipArchiveCache.invalidate(entry.getObjectKey());
+        }
+        log.info("storage_purged: " + prefix + " objects: " + sorted.size() + " entries: " + entries.size());
+        return sorted.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.exception.QuotaExceededException;
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.model.StorageUsage;
+import com.example.onboardingservice.repository.StorageUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Storage used per client and per report. The counters move with every manifest change, in the same
+ * transaction, and are recounted from the manifest periodically to repair drift (a recount can drop
+ * an increment that commits while it runs, the next one picks it up).
+ * {@code storage.quota.client-max-bytes} caps what a client may store; 0 turns the quota off.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageUsageService {
+    private static final String CLIENT_SCOPE = "client/";
+    private static final String REPORT_SCOPE = "report/";
+
+    private final StorageUsageRepository storageUsageRepository;
+    @Value("${storage.quota.client-max-bytes:0}")
+    private long clientMaxBytes;
+
+    /**
+     * Counts a change of the entry's size; {@code objects} is 1 for a new entry, -1 for a removed one.
+     */
+    public void add(ImageManifestEntry entry, long bytes, long objects) {
+        if (bytes == 0 && objects == 0) {
+            return;
+        }
+        storageUsageRepository.addToClient(CLIENT_SCOPE + entry.getOwnerEmail(), entry.getOwnerEmail(), bytes, objects);
+        if (entry.getReportId() != null) {
+            storageUsageRepository.addToReport(REPORT_SCOPE + entry.getReportId(), entry.getOwnerEmail(),
+                    entry.getReportId(), bytes, objects);
+        }
+    }
+
+    public StorageUsage getClientUsage(String clientEmail) {
+        return storageUsageRepository.findById(CLIENT_SCOPE + clientEmail)
+                .orElseGet(() -> StorageUsage.builder()
+                        .scope(CLIENT_SCOPE + clientEmail)
+                        .ownerEmail(clientEmail)
+                        .build());
+    }
+
+    public List<StorageUsage> getReportUsages(String clientEmail) {
+        return storageUsageRepository.findReportsByOwnerEmail(clientEmail);
+    }
+
+    /**
+     * Bytes per report; reports without images are missing.
+     */
+    public Map<Long, Long> getReportBytes(Collection<Long> reportIds) {
+        List<String> scopes = reportIds.stream().map(reportId -> REPORT_SCOPE + reportId).toList();
+        return storageUsageRepository.findAllById(scopes).stream()
+                .collect(Collectors.toMap(StorageUsage::getReportId, StorageUsage::getBytes));
+    }
+
+    public long getReportBytes(Long reportId) {
+        return storageUsageRepository.findById(REPORT_SCOPE + reportId)
+                .map(StorageUsage::getBytes)
+                .orElse(0L);
+    }
+
+    /**
+     * The quota of the client, or null if quotas are off.
+     */
+    public Long getQuota(String clientEmail) {
+        return clientMaxBytes > 0 ? clientMaxBytes : null;
+    }
+
+    /**
+     * Checked before an upload with its declared size. Concurrent uploads can overshoot the quota
+     * by what they upload together, it is not a hard reservation.
+     */
+    public void checkQuota(String clientEmail, long incomingBytes) throws QuotaExceededException {
+        if (clientMaxBytes <= 0) {
+            return;
+        }
+        long used = getClientUsage(clientEmail).getBytes();
+        if (used + incomingBytes > clientMaxBytes) {
+            throw new QuotaExceededException("quota_exceeded: " + clientEmail + " " + used + " + " + incomingBytes);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${storage.usage.recount-initial-delay-ms:60000}",
+            fixedDelayString = "${storage.usage.recount-interval-ms:86400000}")
+    @Transactional
+    public void recount() {
+        int clients = storageUsageRepository.recountClients();
+        int reports = storageUsageRepository.recountReports();
+        int emptied = storageUsageRepository.deleteEmpty();
+        log.info("storage_usage_recounted: clients: " + clients + " reports: " + reports + " emptied: " + emptied);
+    }
+}
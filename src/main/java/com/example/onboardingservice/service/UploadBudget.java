@@ -0,0 +1,125 @@
+package com.example.onboardingservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bytes of upload bodies the node accepts at once, in total and per client. An upload reserves its
+ * declared length before the body is read and releases it when the request ends; uploads that do not
+ * fit wait up to {@code storage.upload.admission.max-wait-ms} and are then turned away.
+ * Client limits default to {@code storage.upload.admission.client-max-bytes} and can be set per client
+ * with {@code storage.upload.admission.client-limits}, e.g. "bill_edwards@gmail.com=536870912,...".
+ */
+@Slf4j
+@Service
+public class UploadBudget {
+    private final long maxInFlightBytes;
+    private final long clientMaxBytes;
+    private final Map<String, Long> clientLimits = new HashMap<>();
+    private final long maxWaitMs;
+    private final Counter rejectedCounter;
+    /** Guarded by this. */
+    private long inFlightBytes;
+    /** Guarded by this. */
+    private final Map<String, Long> inFlightByClient = new HashMap<>();
+
+    public UploadBudget(MeterRegistry meterRegistry,
+                        @Value("${storage.upload.admission.max-in-flight-bytes:268435456}") long maxInFlightBytes,
+                        @Value("${storage.upload.admission.client-max-bytes:67108864}") long clientMaxBytes,
+                        @Value("${storage.upload.admission.client-limits:}") String clientLimits,
+                        @Value("${storage.upload.admission.max-wait-ms:2000}") long maxWaitMs) {
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.clientMaxBytes = clientMaxBytes;
+        this.maxWaitMs = maxWaitMs;
+        for (String limit : clientLimits.split(",")) {
+            int separator = limit.lastIndexOf('=');
+            if (separator > 0) {
+                this.clientLimits.put(limit.substring(0, separator).trim(), Long.valueOf(limit.substring(separator + 1).trim()));
+            }
+        }
+        this.rejectedCounter = Counter.builder("storage.upload.admission.rejected")
+                .description("Uploads turned away because the in-flight budget stayed exhausted")
+                .register(meterRegistry);
+        Gauge.builder("storage.upload.admission.in_flight.bytes", this, UploadBudget::inFlightBytes)
+                .description("Bytes of upload bodies currently admitted")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The most any single upload may declare, given the largest client limit.
+     */
+    public long maxUploadBytes() {
+        long largestClientLimit = clientLimits.values().stream()
+                .mapToLong(Long::longValue)
+                .reduce(clientMaxBytes, Math::max);
+        return Math.min(maxInFlightBytes, largestClientLimit);
+    }
+
+    /**
+     * The most a single upload of the client may declare; larger ones could never be admitted.
+     */
+    public long limitFor(String client) {
+        return Math.min(maxInFlightBytes, clientLimits.getOrDefault(client, clientMaxBytes));
+    }
+
+    /**
+     * Reserves the bytes, waiting while the budget is exhausted. Empty if they did not fit in time.
+     */
+    public Optional<Reservation> reserve(String client, long bytes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        long clientLimit = limitFor(client);
+        synchronized (this) {
+            while (inFlightBytes + bytes > maxInFlightBytes
+                    || inFlightByClient.getOrDefault(client, 0L) + bytes > clientLimit) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    rejectedCounter.increment();
+                    log.error("upload_admission_rejected: " + client + " " + bytes + " in flight: " + inFlightBytes);
+                    return Optional.empty();
+                }
+                wait(remaining);
+            }
+            inFlightBytes += bytes;
+            inFlightByClient.merge(client, bytes, Long::sum);
+        }
+        return Optional.of(new Reservation(client, bytes));
+    }
+
+    private synchronized void release(String client, long bytes) {
+        inFlightBytes -= bytes;
+        inFlightByClient.computeIfPresent(client, (key, reserved) -> reserved == bytes ? null : reserved - bytes);
+        notifyAll();
+    }
+
+    private synchronized double inFlightBytes() {
+        return inFlightBytes;
+    }
+
+    public final class Reservation implements AutoCloseable {
+        private final String client;
+        private final long bytes;
+        private boolean released;
+
+        private Reservation(String client, long bytes) {
+            this.client = client;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(client, bytes);
+            }
+        }
+    }
+}
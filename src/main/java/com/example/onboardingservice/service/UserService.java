@@ -6,24 +6,52 @@ import com.example.onboardingservice.exception.WrongListSize;
 import com.example.onboardingservice.model.Client;
 import com.example.onboardingservice.model.Role;
 import com.example.onboardingservice.model.User;
+import com.example.onboardingservice.model.dto.ClientSummaryDto;
 import com.example.onboardingservice.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final ClientProfileService clientProfileService;
 
     public List<User> listByRole(Role role) {
         return userRepository.findByRole(role);
     }
 
+    /**
+     * All clients with their form, from one query per table rather than one per client.
+     */
+    public List<ClientSummaryDto> listClients() {
+        Map<Long, List<String>> formAnswers = byClient(userRepository.findClientFormAnswers());
+        Map<Long, List<String>> onboardingStages = byClient(userRepository.findClientOnboardingStages());
+        return userRepository.findClientRows().stream()
+                .map(row -> ClientSummaryDto.builder()
+                        .email(row.getEmail())
+                        .role(Role.CLIENT)
+                        .fullName(row.getFullName())
+                        .formAnswers(formAnswers.getOrDefault(row.getId(), List.of()))
+                        .onboardingStages(onboardingStages.getOrDefault(row.getId(), List.of()))
+                        .activeStage(row.getActiveStage())
+                        .build())
+                .toList();
+    }
+
+    private static Map<Long, List<String>> byClient(List<UserRepository.ClientItem> items) {
+        return items.stream().collect(Collectors.groupingBy(
+                UserRepository.ClientItem::getClientId,
+                Collectors.mapping(UserRepository.ClientItem::getItem, Collectors.toList())));
+    }
+
     public Client findClientByEmail(String email) throws UserNotFoundException {
         return (Client) userRepository.findByRoleAndEmail(Role.CLIENT, email)
                 .orElseThrow(UserNotFoundException::new);
@@ -57,8 +85,10 @@ public class UserService {
         if (onboardingStages != null) existing.setOnboardingStages(onboardingStages);
         if (activeStage != null) existing.setActiveStage(activeStage);
         save(existing);
+        clientProfileService.refresh(email);
     }
 
+    @Transactional(readOnly = true)
     public Boolean isFormFilled(String email)
             throws UserNotFoundException, UserIsNotClientException {
         User user = findByEmail(email);
@@ -79,6 +109,7 @@ public class UserService {
     @Transactional
     public List<User> deleteByEmail(String email) {
         userRepository.deleteByEmail(email);
+        clientProfileService.delete(email);
         return listByRole(Role.CLIENT);
     }
 }
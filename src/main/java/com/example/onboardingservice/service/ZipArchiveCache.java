@@ -0,0 +1,327 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageManifestEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keeps generated zip archives on local disk, one directory per prefix and one file per
+ * content fingerprint. The fingerprint covers key, ETag and size of every image, so a cached
+ * archive is only ever served for exactly the images it was built from. Publishing an archive
+ * drops the older fingerprints of its prefix, and archives are evicted least recently used once
+ * they exceed {@code storage.zip-cache.max-bytes}. Archives left by an earlier run are picked up
+ * on start, oldest first.
+ */
+@Component
+@Slf4j
+public class ZipArchiveCache {
+    /** Bump when the archive layout changes so archives built by an older version are not reused. */
+    private static final String FORMAT_VERSION = "zip-v3";
+    private static final String ARCHIVE_SUFFIX = ".zip";
+
+    private final boolean enabled;
+    private final Path root;
+    private final long maxBytes;
+    /** Archive sizes, access-ordered so iteration starts at the least recently used one. Guarded by itself. */
+    private final LinkedHashMap<Path, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    public ZipArchiveCache(@Value("${storage.zip-cache.enabled:true}") boolean enabled,
+                           @Value("${storage.zip-cache.dir:${java.io.tmpdir}/onboarding-zip-cache}") String root,
+                           @Value("${storage.zip-cache.max-bytes:10737418240}") long maxBytes) {
+        this.enabled = enabled;
+        this.root = Path.of(root);
+        this.maxBytes = maxBytes;
+        if (enabled) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String fingerprint(List<ImageManifestEntry> images) {
+        MessageDigest digest = sha256();
+        digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+        for (ImageManifestEntry image : images) {
+            String line = "\n" + image.getObjectKey() + "\0" + image.getEtag() + "\0" + image.getSize()
+                    + "\0" + image.getUploadedAt();
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<Path> find(String prefix, String fingerprint) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path archive = prefixDir(prefix).resolve(fingerprint + ARCHIVE_SUFFIX);
+        if (!Files.isRegularFile(archive)) {
+            return Optional.empty();
+        }
+        synchronized (index) {
+            index.get(archive);
+        }
+        return Optional.of(archive);
+    }
+
+    /**
+     * Runs the writer against the client stream and, at the same time, a temporary file that is
+     * published as the cached archive once the writer completes. Failing to write the cache copy
+     * never fails the download.
+     */
+    public void writeThrough(String prefix, String fingerprint, StreamingResponseBody writer,
+                             OutputStream outputStream) throws IOException {
+        if (!enabled) {
+            writer.writeTo(outputStream);
+            return;
+        }
+        Path dir = prefixDir(prefix);
+        Path temp = null;
+        OutputStream copy;
+        try {
+            Files.createDirectories(dir);
+            temp = Files.createTempFile(dir, fingerprint, ".part");
+            copy = new BufferedOutputStream(Files.newOutputStream(temp));
+        } catch (IOException e) {
+            log.warn("zip_cache_unavailable: " + prefix + " " + e.getMessage());
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+            writer.writeTo(outputStream);
+            return;
+        }
+
+        TeeOutputStream tee = new TeeOutputStream(outputStream, copy);
+        boolean complete = false;
+        try {
+            writer.writeTo(tee);
+            complete = true;
+        } finally {
+            tee.closeCopy();
+            if (complete && !tee.isCopyFailed()) {
+                publish(temp, dir, fingerprint);
+            } else {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached archives of every prefix covering the key.
+     */
+    public void invalidate(String objectKey) {
+        if (!enabled) {
+            return;
+        }
+        for (int i = objectKey.indexOf('/'); i >= 0; i = objectKey.indexOf('/', i + 1)) {
+            delete(objectKey.substring(0, i));
+            delete(objectKey.substring(0, i + 1));
+        }
+    }
+
+    private void publish(Path temp, Path dir, String fingerprint) {
+        Path published = dir.resolve(fingerprint + ARCHIVE_SUFFIX);
+        try {
+            long size = Files.size(temp);
+            Files.move(temp, published, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try (DirectoryStream<Path> archives = Files.newDirectoryStream(dir, "*" + ARCHIVE_SUFFIX)) {
+                for (Path archive : archives) {
+                    if (!archive.equals(published)) {
+                        Files.deleteIfExists(archive);
+                        forget(archive);
+                    }
+                }
+            }
+            track(published, size);
+        } catch (IOException e) {
+            // the prefix was invalidated while the archive was being built
+            log.warn("zip_cache_publish_failed: " + dir + " " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Adds the archive to the index and evicts the least recently used others until the cache fits.
+     */
+    private void track(Path archive, long size) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (index) {
+            Long previous = index.put(archive, size);
+            cachedBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<Path, Long>> eldest = index.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Path, Long> entry = eldest.next();
+                if (entry.getKey().equals(archive)) {
+                    continue;
+                }
+                eldest.remove();
+                evicted.add(entry.getKey());
+                cachedBytes -= entry.getValue();
+            }
+        }
+        for (Path path : evicted) {
+            try {
+                // a download already streaming the file keeps reading it, the file system frees it on close
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("zip_cache_evict_failed: " + path + " " + e.getMessage());
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.info("zip_cache_evicted: " + evicted.size());
+        }
+    }
+
+    private void forget(Path archive) {
+        synchronized (index) {
+            Long size = index.remove(archive);
+            if (size != null) {
+                cachedBytes -= size;
+            }
+        }
+    }
+
+    private void delete(String prefix) {
+        Path dir = prefixDir(prefix);
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            log.warn("zip_cache_invalidate_failed: " + prefix + " " + e.getMessage());
+        }
+        synchronized (index) {
+            Iterator<Map.Entry<Path, Long>> entries = index.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Path, Long> entry = entries.next();
+                if (entry.getKey().startsWith(dir)) {
+                    entries.remove();
+                    cachedBytes -= entry.getValue();
+                }
+            }
+        }
+    }
+
+    private void load() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> archives;
+        try (Stream<Path> files = Files.find(root, 2, (path, attributes) ->
+                attributes.isRegularFile() && path.getFileName().toString().endsWith(ARCHIVE_SUFFIX))) {
+            archives = files.sorted(Comparator.comparing(ZipArchiveCache::lastModified)).toList();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("zip_cache_load_failed: " + root + " " + e.getMessage());
+            return;
+        }
+        for (Path archive : archives) {
+            try {
+                track(archive, Files.size(archive));
+            } catch (IOException e) {
+                log.warn("zip_cache_load_failed: " + archive + " " + e.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path prefixDir(String prefix) {
+        // prefixes contain emails, hashing keeps the directory names safe
+        return root.resolve(HexFormat.of().formatHex(sha256().digest(prefix.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copies everything written to the client into the cache file. Errors on the copy only
+     * disable caching for this archive.
+     */
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream client;
+        private final OutputStream copy;
+        private boolean copyFailed;
+
+        TeeOutputStream(OutputStream client, OutputStream copy) {
+            this.client = client;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            client.write(b);
+            if (!copyFailed) {
+                try {
+                    copy.write(b);
+                } catch (IOException e) {
+                    copyFailed = true;
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            client.write(b, off, len);
+            if (!copyFailed) {
+                try {
+                    copy.write(b, off, len);
+                } catch (IOException e) {
+                    copyFailed = true;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            client.flush();
+        }
+
+        boolean isCopyFailed() {
+            return copyFailed;
+        }
+
+        void closeCopy() {
+            try {
+                copy.close();
+            } catch (IOException e) {
+                copyFailed = true;
+            }
+        }
+    }
+}
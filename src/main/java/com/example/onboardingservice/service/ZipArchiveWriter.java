@@ -0,0 +1,170 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.ImageManifestEntry;
+import com.example.onboardingservice.service.storage.ObjectStorage;
+import com.example.onboardingservice.service.storage.StoredObject;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds a zip archive from stored images. Up to {@code prefetchCount} objects are downloaded
+ * concurrently while the calling thread appends them to the archive in listing order.
+ * Prefetched bytes are capped per download by {@code prefetchBufferBytes}; objects larger
+ * than that budget are not buffered but streamed straight into the archive when their turn comes.
+ */
+@Component
+@Slf4j
+public class ZipArchiveWriter {
+    private final ObjectStorage objectStorage;
+    private final ExecutorService prefetchExecutor;
+    private final ZipCompressionPolicy zipCompressionPolicy;
+    private final int prefetchCount;
+    private final long prefetchBufferBytes;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong bytesBuffered = new AtomicLong();
+
+    public ZipArchiveWriter(ObjectStorage objectStorage,
+                            @Qualifier("zipPrefetchExecutor") ExecutorService prefetchExecutor,
+                            ZipCompressionPolicy zipCompressionPolicy,
+                            MeterRegistry meterRegistry,
+                            @Value("${storage.zip.prefetch-count:8}") int prefetchCount,
+                            @Value("${storage.zip.prefetch-buffer-bytes:33554432}") long prefetchBufferBytes) {
+        this.objectStorage = objectStorage;
+        this.prefetchExecutor = prefetchExecutor;
+        this.zipCompressionPolicy = zipCompressionPolicy;
+        this.prefetchCount = Math.max(1, prefetchCount);
+        this.prefetchBufferBytes = prefetchBufferBytes;
+        Gauge.builder("storage.zip.prefetch.queue.depth", queueDepth, AtomicInteger::get)
+                .description("Objects being prefetched or waiting to be written, over all downloads")
+                .register(meterRegistry);
+        Gauge.builder("storage.zip.prefetch.buffered.bytes", bytesBuffered, AtomicLong::get)
+                .description("Bytes reserved for prefetched objects, over all downloads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void write(List<ImageManifestEntry> images, OutputStream outputStream) throws IOException {
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        Deque<PendingObject> pending = new ArrayDeque<>();
+        long reserved = 0;
+        int next = 0;
+        try {
+            while (next < images.size() || !pending.isEmpty()) {
+                while (next < images.size() && pending.size() < prefetchCount) {
+                    ImageManifestEntry image = images.get(next);
+                    if (image.getSize() > prefetchBufferBytes) {
+                        pending.add(new PendingObject(image, null));
+                    } else if (reserved + image.getSize() <= prefetchBufferBytes) {
+                        // count only once submit has returned: a rejected task is never released
+                        Future<byte[]> content = prefetchExecutor.submit(() -> fetch(image));
+                        reserved += image.getSize();
+                        bytesBuffered.addAndGet(image.getSize());
+                        queueDepth.incrementAndGet();
+                        pending.add(new PendingObject(image, content));
+                    } else {
+                        break;
+                    }
+                    next++;
+                }
+
+                PendingObject head = pending.poll();
+                if (head.content() == null) {
+                    copy(head.image(), zipOutputStream);
+                } else {
+                    byte[] bytes = await(head);
+                    reserved -= head.image().getSize();
+                    zipCompressionPolicy.writeEntry(zipOutputStream, entry(head.image()), bytes);
+                }
+            }
+            // finish() rather than close(): the servlet output stream belongs to the container
+            zipOutputStream.finish();
+        } finally {
+            for (PendingObject leftover : pending) {
+                release(leftover);
+            }
+        }
+    }
+
+    private byte[] await(PendingObject pendingObject) throws IOException {
+        try {
+            return pendingObject.content().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("zip_prefetch_interrupted: " + pendingObject.image().getObjectKey());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("zip_prefetch_failed: " + pendingObject.image().getObjectKey(), e.getCause());
+        } finally {
+            queueDepth.decrementAndGet();
+            bytesBuffered.addAndGet(-pendingObject.image().getSize());
+        }
+    }
+
+    private void release(PendingObject pendingObject) {
+        if (pendingObject.content() == null) {
+            return;
+        }
+        pendingObject.content().cancel(true);
+        queueDepth.decrementAndGet();
+        bytesBuffered.addAndGet(-pendingObject.image().getSize());
+    }
+
+    private byte[] fetch(ImageManifestEntry image) throws IOException {
+        try (StoredObject object = objectStorage.get(image.getStorageKey(), image.getEtag())) {
+            return object.content().readAllBytes();
+        }
+    }
+
+    private void copy(ImageManifestEntry image, ZipOutputStream zipOutputStream) throws IOException {
+        String key = image.getStorageKey();
+        StoredObject object = objectStorage.get(key, image.getEtag());
+        try {
+            zipCompressionPolicy.writeEntry(zipOutputStream, entry(image), object.content());
+        } catch (IOException e) {
+            // Usually the client has gone away: drop the connection instead of draining the rest of the object
+            object.abort();
+            log.warn("zip_stream_aborted: " + key + " " + e.getMessage());
+            throw e;
+        } finally {
+            object.close();
+        }
+    }
+
+    /**
+     * Entry times come from the manifest rather than the clock, so the same images always produce
+     * byte-identical archives and byte ranges stay valid when an archive is rebuilt.
+     */
+    private static ZipEntry entry(ImageManifestEntry image) {
+        ZipEntry entry = new ZipEntry(fileName(image.getObjectKey()));
+        entry.setTime(image.getUploadedAt() != null ? image.getUploadedAt().toEpochMilli() : 0L);
+        return entry;
+    }
+
+    private static String fileName(String key) {
+        String[] keyPathElements = key.split("/");
+        return keyPathElements[keyPathElements.length - 1];
+    }
+
+    private record PendingObject(ImageManifestEntry image, Future<byte[]> content) {
+    }
+}
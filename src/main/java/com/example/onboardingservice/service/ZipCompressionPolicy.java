@@ -0,0 +1,74 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.model.FileFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Chooses how each zip entry is compressed from the entry's leading bytes. Content that is
+ * already compressed (JPEG, PNG, ...) is stored as is; everything else is deflated at
+ * storage.zip.deflate-level.
+ */
+@Component
+public class ZipCompressionPolicy {
+    private final int deflateLevel;
+    private final boolean storePrecompressed;
+
+    public ZipCompressionPolicy(@Value("${storage.zip.deflate-level:6}") int deflateLevel,
+                                @Value("${storage.zip.store-precompressed:true}") boolean storePrecompressed) {
+        if (deflateLevel < Deflater.DEFAULT_COMPRESSION || deflateLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("storage.zip.deflate-level must be between -1 and 9");
+        }
+        this.deflateLevel = deflateLevel;
+        this.storePrecompressed = storePrecompressed;
+    }
+
+    /**
+     * Writes an entry whose content is fully in memory. Precompressed content becomes a STORED
+     * entry, which needs size and CRC up front and costs nothing but the CRC.
+     */
+    public void writeEntry(ZipOutputStream zipOutputStream, ZipEntry entry, byte[] content) throws IOException {
+        if (isPrecompressed(Arrays.copyOf(content, Math.min(content.length, FileFormat.SIGNATURE_LENGTH)))) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+            zipOutputStream.setLevel(deflateLevel);
+        }
+        zipOutputStream.putNextEntry(entry);
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+    }
+
+    /**
+     * Writes an entry streamed from storage. Size and CRC are not known before the data has gone
+     * out, so precompressed content is deflated at level 0, which only frames the bytes.
+     */
+    public void writeEntry(ZipOutputStream zipOutputStream, ZipEntry entry, InputStream content) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(content, FileFormat.SIGNATURE_LENGTH);
+        byte[] head = input.readNBytes(FileFormat.SIGNATURE_LENGTH);
+        input.unread(head);
+        entry.setMethod(ZipEntry.DEFLATED);
+        zipOutputStream.setLevel(isPrecompressed(head) ? Deflater.NO_COMPRESSION : deflateLevel);
+        zipOutputStream.putNextEntry(entry);
+        input.transferTo(zipOutputStream);
+        zipOutputStream.closeEntry();
+    }
+
+    private boolean isPrecompressed(byte[] head) {
+        return storePrecompressed && FileFormat.detect(head).map(FileFormat::isCompressed).orElse(false);
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.onboardingservice.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Read-through disk cache in front of the bucket. Objects read with {@link #get} are kept under
+ * {@code storage.read-cache.dir}, evicted least recently used once they exceed
+ * {@code storage.read-cache.max-bytes}. A cached copy is only served while its ETag is current:
+ * callers that pass the ETag they expect (the zip writer passes the manifest's) get it without
+ * a request to the bucket, others after a HEAD. Concurrent misses on the same key share one download.
+ * Objects above {@code storage.read-cache.max-object-bytes} are streamed through uncached.
+ * The index lives in memory, so the directory is cleared on start.
+ */
+@Component
+@Primary
+@ConditionalOnExpression("'${storage.backend:s3}' == 's3' and ${storage.read-cache.enabled:true}")
+@Slf4j
+public class CachingObjectStorage implements ObjectStorage {
+    private final S3ObjectStorage delegate;
+    private final Path dir;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    /** Access-ordered, so iteration starts at the least recently used object. Guarded by itself. */
+    private final LinkedHashMap<String, CachedObject> index = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<CachedObject>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sharedCounter;
+    private final Counter bypassCounter;
+    private final Counter servedBytes;
+
+    public CachingObjectStorage(S3ObjectStorage delegate,
+                                MeterRegistry meterRegistry,
+                                @Value("${storage.read-cache.dir:${java.io.tmpdir}/onboarding-read-cache}") String dir,
+                                @Value("${storage.read-cache.max-bytes:1073741824}") long maxBytes,
+                                @Value("${storage.read-cache.max-object-bytes:67108864}") long maxObjectBytes)
+            throws IOException {
+        this.delegate = delegate;
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes);
+        clear(this.dir);
+
+        hitCounter = requests(meterRegistry, "hit");
+        missCounter = requests(meterRegistry, "miss");
+        sharedCounter = requests(meterRegistry, "shared");
+        bypassCounter = requests(meterRegistry, "bypass");
+        servedBytes = Counter.builder("storage.read_cache.served.bytes")
+                .description("Bytes served from the read cache instead of the bucket")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.read_cache.size.bytes", cachedBytes, AtomicLong::get)
+                .description("Bytes held by the read cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.read_cache.hit.ratio", this, CachingObjectStorage::hitRatio)
+                .description("Share of cacheable reads served from the read cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String put(String key, InputStream content, long contentLength, String contentType, String cacheControl)
+            throws IOException {
+        try {
+            return delegate.put(key, content, contentLength, contentType, cacheControl);
+        } finally {
+            evict(key);
+        }
+    }
+
+    @Override
+    public StoredObject get(String key) throws IOException {
+        return get(key, null);
+    }
+
+    @Override
+    public StoredObject get(String key, String expectedEtag) throws IOException {
+        CachedObject cached;
+        synchronized (index) {
+            cached = index.get(key);
+        }
+        if (cached != null && isCurrent(key, cached, expectedEtag)) {
+            StoredObject object = open(cached);
+            if (object != null) {
+                hits.incrementAndGet();
+                hitCounter.increment();
+                servedBytes.increment(cached.size());
+                return object;
+            }
+        }
+        return miss(key);
+    }
+
+    /**
+     * Not cached: prefixes are read once, to check uploads.
+     */
+    @Override
+    public byte[] readPrefix(String key, int length) throws IOException {
+        return delegate.readPrefix(key, length);
+    }
+
+    @Override
+    public Optional<ObjectInfo> head(String key) {
+        return delegate.head(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            delegate.delete(key);
+        } finally {
+            evict(key);
+        }
+    }
+
+    @Override
+    public void delete(List<String> keys) {
+        try {
+            delegate.delete(keys);
+        } finally {
+            keys.forEach(this::evict);
+        }
+    }
+
+    @Override
+    public List<ObjectInfo> list(String prefix) {
+        return delegate.list(prefix);
+    }
+
+    @Override
+    public PresignedUpload presignPut(String key, String contentType, String cacheControl, Instant expiresAt) {
+        return delegate.presignPut(key, contentType, cacheControl, expiresAt);
+    }
+
+    private boolean isCurrent(String key, CachedObject cached, String expectedEtag) {
+        if (expectedEtag != null) {
+            return normalizeEtag(expectedEtag).equals(cached.etag());
+        }
+        return delegate.head(key)
+                .map(info -> normalizeEtag(info.getEtag()))
+                .filter(cached.etag()::equals)
+                .isPresent();
+    }
+
+    /**
+     * The first reader downloads the object into the cache; readers arriving meanwhile wait for
+     * that download instead of starting their own.
+     */
+    private StoredObject miss(String key) throws IOException {
+        CompletableFuture<CachedObject> download = new CompletableFuture<>();
+        CompletableFuture<CachedObject> running = inFlight.putIfAbsent(key, download);
+        if (running != null) {
+            CachedObject shared = await(running, key);
+            StoredObject object = shared != null ? open(shared) : null;
+            if (object == null) {
+                bypassCounter.increment();
+                return delegate.get(key);
+            }
+            sharedCounter.increment();
+            servedBytes.increment(shared.size());
+            return object;
+        }
+
+        try {
+            StoredObject origin = delegate.get(key);
+            if (origin.size() > maxObjectBytes) {
+                download.complete(null);
+                bypassCounter.increment();
+                return origin;
+            }
+            misses.incrementAndGet();
+            missCounter.increment();
+            CachedObject cached = store(key, origin);
+            download.complete(cached);
+            StoredObject object = open(cached);
+            return object != null ? object : delegate.get(key);
+        } catch (IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, download);
+        }
+    }
+
+    private CachedObject store(String key, StoredObject origin) throws IOException {
+        Path file = dir.resolve(UUID.randomUUID().toString());
+        try {
+            Files.copy(origin.content(), file);
+        } catch (IOException | RuntimeException e) {
+            origin.abort();
+            Files.deleteIfExists(file);
+            throw e;
+        } finally {
+            origin.close();
+        }
+        CachedObject cached = new CachedObject(file, Files.size(file), normalizeEtag(origin.etag()));
+        List<CachedObject> evicted = new ArrayList<>();
+        synchronized (index) {
+            CachedObject previous = index.put(key, cached);
+            if (previous != null) {
+                evicted.add(previous);
+                cachedBytes.addAndGet(-previous.size());
+            }
+            cachedBytes.addAndGet(cached.size());
+            Iterator<Map.Entry<String, CachedObject>> eldest = index.entrySet().iterator();
+            while (cachedBytes.get() > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedObject> entry = eldest.next();
+                if (entry.getValue() == cached) {
+                    continue;
+                }
+                eldest.remove();
+                evicted.add(entry.getValue());
+                cachedBytes.addAndGet(-entry.getValue().size());
+            }
+        }
+        evicted.forEach(this::deleteFile);
+        return cached;
+    }
+
+    /**
+     * Null if the file was evicted in the meantime. A reader that already has the file open keeps
+     * reading it after eviction, the file system frees it on close.
+     */
+    private StoredObject open(CachedObject cached) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(cached.file(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        InputStream content = Channels.newInputStream(channel);
+        return new StoredObject() {
+            @Override
+            public InputStream content() {
+                return content;
+            }
+
+            @Override
+            public long size() {
+                return cached.size();
+            }
+
+            @Override
+            public String etag() {
+                return cached.etag();
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("read_cache_close_failed: " + cached.file() + " " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    private void evict(String key) {
+        CachedObject cached;
+        synchronized (index) {
+            cached = index.remove(key);
+            if (cached != null) {
+                cachedBytes.addAndGet(-cached.size());
+            }
+        }
+        if (cached != null) {
+            deleteFile(cached);
+        }
+    }
+
+    private void deleteFile(CachedObject cached) {
+        try {
+            Files.deleteIfExists(cached.file());
+        } catch (IOException e) {
+            log.warn("read_cache_delete_failed: " + cached.file() + " " + e.getMessage());
+        }
+    }
+
+    private static CachedObject await(CompletableFuture<CachedObject> download, String key) throws IOException {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("read_cache_interrupted: " + key);
+        } catch (ExecutionException e) {
+            // the download failed for its owner, let this reader try on its own
+            return null;
+        }
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("storage.read_cache.requests")
+                .description("Object reads by read cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void clear(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static String normalizeEtag(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
+    private record CachedObject(Path file, long size, String etag) {
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.onboardingservice.service.storage;
+
+import com.example.onboardingservice.model.FileFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Objects as files under {@code storage.local.dir}, for single-node and offline deployments.
+ * Reads are served by {@code LocalStorageController}, which hands the file to the container
+ * (sendfile) or copies it with {@link FileChannel#transferTo}, so the bytes never pass through the heap.
+ * Direct uploads PUT to the same controller with an HMAC-signed URL.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+@Slf4j
+public class LocalObjectStorage implements ObjectStorage {
+    private static final String TEMP_DIR = ".tmp";
+    private static final String SIGNING_ALGORITHM = "HmacSHA256";
+
+    private final Path root;
+    private final String baseUrl;
+    private final byte[] signingKey;
+
+    public LocalObjectStorage(@Value("${storage.local.dir:${java.io.tmpdir}/onboarding-storage}") String dir,
+                              @Value("${storage.base-url}") String baseUrl,
+                              @Value("${storage.local.signing-secret:}") String signingSecret) throws IOException {
+        this.root = Path.of(dir).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl;
+        if (signingSecret.isBlank()) {
+            // upload URLs then only stay valid until restart
+            this.signingKey = new byte[32];
+            new SecureRandom().nextBytes(this.signingKey);
+        } else {
+            this.signingKey = signingSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        Files.createDirectories(root.resolve(TEMP_DIR));
+        log.info("local_storage_root: " + root);
+    }
+
+    /**
+     * Written to a temporary file first and moved into place, so readers never see a partial object.
+     */
+    @Override
+    public String put(String key, InputStream content, long contentLength, String contentType, String cacheControl)
+            throws IOException {
+        Path target = resolve(key);
+        Path temp = root.resolve(TEMP_DIR).resolve(UUID.randomUUID().toString());
+        try {
+            long written = Files.copy(content, temp);
+            if (contentLength >= 0 && written != contentLength) {
+                throw new IOException("local_put_truncated: " + key + " " + written + " of " + contentLength);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return etag(Files.readAttributes(target, BasicFileAttributes.class));
+    }
+
+    @Override
+    public StoredObject get(String key) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(key);
+        }
+        InputStream content = Channels.newInputStream(channel);
+        long size = channel.size();
+        String etag = etag(Files.readAttributes(resolve(key), BasicFileAttributes.class));
+        return new StoredObject() {
+            @Override
+            public InputStream content() {
+                return content;
+            }
+
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public String etag() {
+                return etag;
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("local_storage_close_failed: " + key + " " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    @Override
+    public Optional<ObjectInfo> head(String key) {
+        Path path = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(info(key, path, attributes));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Content types are not listed, like in S3 listings; {@link #head(String)} sniffs them.
+     */
+    @Override
+    public List<ObjectInfo> list(String prefix) {
+        Path start = resolve(prefix.substring(0, prefix.lastIndexOf('/') + 1));
+        if (!Files.isDirectory(start)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(start)) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .map(path -> Map.entry(toKey(path), path))
+                    .filter(entry -> entry.getKey().startsWith(prefix) && !entry.getKey().startsWith(TEMP_DIR + "/"))
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(entry -> {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(entry.getValue(), BasicFileAttributes.class);
+                            return ObjectInfo.builder()
+                                    .key(entry.getKey())
+                                    .size(attributes.size())
+                                    .etag(etag(attributes))
+                                    .lastModified(attributes.lastModifiedTime().toInstant())
+                                    .build();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The signature covers key, content type and expiry; the cache header is set when the file is served.
+     */
+    @Override
+    public PresignedUpload presignPut(String key, String contentType, String cacheControl, Instant expiresAt) {
+        long expires = expiresAt.getEpochSecond();
+        return PresignedUpload.builder()
+                .url(baseUrl + UriUtils.encodePath(key, StandardCharsets.UTF_8)
+                        + "?expires=" + expires + "&signature=" + sign(key, contentType, expires))
+                .headers(Map.of("Content-Type", contentType))
+                .build();
+    }
+
+    public boolean verifyUpload(String key, String contentType, long expires, String signature) {
+        if (Instant.now().getEpochSecond() > expires || signature == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(key, contentType, expires).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The file of the object, for serving it without copying through the heap.
+     *
+     * @throws IllegalArgumentException if the key points outside the storage root
+     */
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(root.resolve(TEMP_DIR))) {
+            throw new IllegalArgumentException("key_outside_storage: " + key);
+        }
+        return path;
+    }
+
+    private ObjectInfo info(String key, Path path, BasicFileAttributes attributes) throws IOException {
+        return ObjectInfo.builder()
+                .key(key)
+                .size(attributes.size())
+                .etag(etag(attributes))
+                .contentType(contentType(key, path))
+                .lastModified(attributes.lastModifiedTime().toInstant())
+                .build();
+    }
+
+    /**
+     * Blob keys carry no extension, so the type is taken from the magic bytes first.
+     */
+    private static String contentType(String key, Path path) throws IOException {
+        byte[] head;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            head = inputStream.readNBytes(FileFormat.SIGNATURE_LENGTH);
+        }
+        Optional<FileFormat> format = FileFormat.detect(head);
+        if (format.isPresent()) {
+            return format.get().getMimeType();
+        }
+        String guessed = URLConnection.guessContentTypeFromName(key);
+        return guessed != null ? guessed : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    /**
+     * Size and modification time, which change with every put; cheaper than hashing the file.
+     */
+    private static String etag(BasicFileAttributes attributes) {
+        return Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis());
+    }
+
+    private String toKey(Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private String sign(String key, String contentType, long expires) {
+        try {
+            Mac mac = Mac.getInstance(SIGNING_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, SIGNING_ALGORITHM));
+            byte[] signature = mac.doFinal((key + "\n" + contentType + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
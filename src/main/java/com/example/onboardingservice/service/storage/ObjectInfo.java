@@ -0,0 +1,17 @@
+package com.example.onboardingservice.service.storage;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ObjectInfo {
+    private String key;
+    private long size;
+    private String etag;
+    /** Null where the backend does not report it, e.g. in S3 listings. */
+    private String contentType;
+    private Instant lastModified;
+}
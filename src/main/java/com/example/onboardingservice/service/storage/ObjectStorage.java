@@ -0,0 +1,71 @@
+package com.example.onboardingservice.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where image bytes live. Keys are "/"-separated paths such as "media-assets/{email}/{file}";
+ * every stored object is publicly readable under {@code storage.base-url} + key.
+ * The implementation is picked with {@code storage.backend}: "s3" (default) or "local".
+ */
+public interface ObjectStorage {
+
+    /**
+     * @return the ETag of the stored object
+     */
+    String put(String key, InputStream content, long contentLength, String contentType, String cacheControl)
+            throws IOException;
+
+    /**
+     * Opens the object for reading; the caller closes it.
+     *
+     * @throws java.io.FileNotFoundException if there is no such object
+     */
+    StoredObject get(String key) throws IOException;
+
+    /**
+     * Like {@link #get(String)}, for callers that know the ETag they expect, e.g. from the manifest.
+     * A caching backend serves a cached copy with that ETag without asking the origin first.
+     */
+    default StoredObject get(String key, String expectedEtag) throws IOException {
+        return get(key);
+    }
+
+    /**
+     * Up to {@code length} leading bytes of the object, without transferring the rest.
+     *
+     * @throws java.io.FileNotFoundException if there is no such object
+     */
+    default byte[] readPrefix(String key, int length) throws IOException {
+        try (StoredObject object = get(key)) {
+            byte[] prefix = object.content().readNBytes(length);
+            object.abort();
+            return prefix;
+        }
+    }
+
+    Optional<ObjectInfo> head(String key);
+
+    void delete(String key);
+
+    /**
+     * Deletes the objects, in as few requests as the backend allows. Missing keys are ignored.
+     */
+    default void delete(List<String> keys) {
+        keys.forEach(this::delete);
+    }
+
+    /**
+     * Every object whose key starts with the prefix, in key order.
+     */
+    List<ObjectInfo> list(String prefix);
+
+    /**
+     * A URL the client can PUT the object to directly, valid until {@code expiresAt}.
+     * The PUT must carry exactly the returned headers.
+     */
+    PresignedUpload presignPut(String key, String contentType, String cacheControl, Instant expiresAt);
+}
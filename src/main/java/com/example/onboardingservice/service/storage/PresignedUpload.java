@@ -0,0 +1,13 @@
+package com.example.onboardingservice.service.storage;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class PresignedUpload {
+    private String url;
+    private Map<String, String> headers;
+}
@@ -0,0 +1,125 @@
+package com.example.onboardingservice.service.storage;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams an upload into S3. Small objects go out as a single PUT read straight from the stream;
+ * larger ones become a multipart upload whose parts are sent concurrently. At most
+ * {@code partParallelism} parts of {@code partSize} bytes are held in memory per upload.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+@Slf4j
+public class S3MultipartUploader {
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final AmazonS3 s3;
+    private final ExecutorService uploadPartExecutor;
+    private final String bucket;
+    private final int partSize;
+    private final int partParallelism;
+
+    public S3MultipartUploader(AmazonS3 s3,
+                               @Qualifier("uploadPartExecutor") ExecutorService uploadPartExecutor,
+                               @Value("${storage.root}") String bucket,
+                               @Value("${storage.upload.part-size-bytes:8388608}") int partSize,
+                               @Value("${storage.upload.part-parallelism:4}") int partParallelism) {
+        this.s3 = s3;
+        this.uploadPartExecutor = uploadPartExecutor;
+        this.bucket = bucket;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.partParallelism = Math.max(1, partParallelism);
+    }
+
+    /**
+     * The canned ACL travels with the PUT (or the multipart initiation), so no separate ACL request is needed.
+     *
+     * @return the ETag of the stored object
+     */
+    public String upload(String key, InputStream inputStream, long contentLength, ObjectMetadata metadata,
+                       CannedAccessControlList acl) throws IOException {
+        if (contentLength <= partSize) {
+            metadata.setContentLength(contentLength);
+            return s3.putObject(new PutObjectRequest(bucket, key, inputStream, metadata).withCannedAcl(acl))
+                    .getETag();
+        }
+
+        String uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key, metadata)
+                        .withCannedACL(acl))
+                .getUploadId();
+        Semaphore inFlight = new Semaphore(partParallelism);
+        List<Future<PartETag>> parts = new ArrayList<>();
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                inFlight.acquire();
+                byte[] part = inputStream.readNBytes(partSize);
+                if (part.length == 0) {
+                    inFlight.release();
+                    break;
+                }
+                parts.add(uploadPartExecutor.submit(uploadPart(key, uploadId, partNumber, part, inFlight)));
+            }
+            List<PartETag> partETags = new ArrayList<>();
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+            return s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags))
+                    .getETag();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new InterruptedIOException("multipart_upload_interrupted: " + key);
+        } catch (ExecutionException e) {
+            abort(key, uploadId, parts);
+            throw new IOException("multipart_upload_failed: " + key, e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private Callable<PartETag> uploadPart(String key, String uploadId, int partNumber,
+                                       byte[] part, Semaphore inFlight) {
+        return () -> {
+            try {
+                return s3.uploadPart(new UploadPartRequest()
+                                .withBucketName(bucket)
+                                .withKey(key)
+                                .withUploadId(uploadId)
+                                .withPartNumber(partNumber)
+                                .withInputStream(new ByteArrayInputStream(part))
+                                .withPartSize(part.length))
+                        .getPartETag();
+            } finally {
+                inFlight.release();
+            }
+        };
+    }
+
+    private void abort(String key, String uploadId, List<Future<PartETag>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (RuntimeException e) {
+            log.error("multipart_abort_failed: " + key + " " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.onboardingservice.service.storage;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The bucket named by {@code storage.root}. Objects are written with the public-read canned ACL.
+ * Every request goes through {@link StorageResilience}.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3ObjectStorage implements ObjectStorage {
+    private static final int NOT_FOUND = 404;
+    /** Most keys S3 accepts in one DeleteObjects request. */
+    private static final int MAX_DELETE_BATCH = 1000;
+
+    private final AmazonS3 s3;
+    private final S3MultipartUploader s3MultipartUploader;
+    private final StorageResilience storageResilience;
+    private final String bucket;
+
+    public S3ObjectStorage(AmazonS3 s3,
+                           S3MultipartUploader s3MultipartUploader,
+                           StorageResilience storageResilience,
+                           @Value("${storage.root}") String bucket) {
+        this.s3 = s3;
+        this.s3MultipartUploader = s3MultipartUploader;
+        this.storageResilience = storageResilience;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public String put(String key, InputStream content, long contentLength, String contentType, String cacheControl)
+            throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setCacheControl(cacheControl);
+        return storageResilience.write("put", () ->
+                s3MultipartUploader.upload(key, content, contentLength, metadata, CannedAccessControlList.PublicRead));
+    }
+
+    @Override
+    public StoredObject get(String key) throws IOException {
+        // the hedge races to the response headers; the body is read from whichever answered first
+        S3Object object = storageResilience.read("get", () -> {
+            try {
+                return s3.getObject(bucket, key);
+            } catch (AmazonServiceException e) {
+                if (e.getStatusCode() == NOT_FOUND) {
+                    throw new FileNotFoundException(key);
+                }
+                throw e;
+            }
+        }, lost -> lost.getObjectContent().abort());
+        S3ObjectInputStream objectContent = object.getObjectContent();
+        long size = object.getObjectMetadata().getContentLength();
+        String etag = object.getObjectMetadata().getETag();
+        return new StoredObject() {
+            @Override
+            public InputStream content() {
+                return objectContent;
+            }
+
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public String etag() {
+                return etag;
+            }
+
+            @Override
+            public void abort() {
+                objectContent.abort();
+            }
+
+            @Override
+            public void close() throws IOException {
+                objectContent.close();
+            }
+        };
+    }
+
+    /**
+     * A ranged GET, so only the requested bytes leave the bucket.
+     */
+    @Override
+    public byte[] readPrefix(String key, int length) throws IOException {
+        S3Object object = storageResilience.read("get", () -> {
+            try {
+                return s3.getObject(new GetObjectRequest(bucket, key).withRange(0, length - 1));
+            } catch (AmazonServiceException e) {
+                if (e.getStatusCode() == NOT_FOUND) {
+                    throw new FileNotFoundException(key);
+                }
+                throw e;
+            }
+        }, lost -> lost.getObjectContent().abort());
+        try (S3ObjectInputStream content = object.getObjectContent()) {
+            return content.readNBytes(length);
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> head(String key) {
+        try {
+            return storageResilience.read("head", () -> {
+                try {
+                    ObjectMetadata metadata = s3.getObjectMetadata(bucket, key);
+                    return Optional.of(ObjectInfo.builder()
+                            .key(key)
+                            .size(metadata.getContentLength())
+                            .etag(metadata.getETag())
+                            .contentType(metadata.getContentType())
+                            .lastModified(metadata.getLastModified() != null ? metadata.getLastModified().toInstant() : null)
+                            .build());
+                } catch (AmazonServiceException e) {
+                    if (e.getStatusCode() == NOT_FOUND) {
+                        return Optional.empty();
+                    }
+                    throw e;
+                }
+            }, lost -> {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            storageResilience.call("delete", () -> {
+                s3.deleteObject(bucket, key);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One DeleteObjects request per 1000 keys, in quiet mode so only failures are returned.
+     */
+    @Override
+    public void delete(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_BATCH) {
+            List<DeleteObjectsRequest.KeyVersion> batch = keys.subList(from, Math.min(from + MAX_DELETE_BATCH, keys.size()))
+                    .stream()
+                    .map(DeleteObjectsRequest.KeyVersion::new)
+                    .toList();
+            try {
+                storageResilience.call("delete", () -> s3.deleteObjects(new DeleteObjectsRequest(bucket)
+                        .withKeys(batch)
+                        .withQuiet(true)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public List<ObjectInfo> list(String prefix) {
+        try {
+            return storageResilience.read("list", () -> listAll(prefix), lost -> {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<ObjectInfo> listAll(String prefix) {
+        List<ObjectInfo> objects = new ArrayList<>();
+        ObjectListing listing = s3.listObjects(bucket, prefix);
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                objects.add(ObjectInfo.builder()
+                        .key(summary.getKey())
+                        .size(summary.getSize())
+                        .etag(summary.getETag())
+                        .lastModified(summary.getLastModified().toInstant())
+                        .build());
+            }
+            if (!listing.isTruncated()) {
+                return objects;
+            }
+            listing = s3.listNextBatchOfObjects(listing);
+        }
+    }
+
+    /**
+     * The content type, ACL and cache headers are signed into the URL, so the client cannot store
+     * the object privately or under a different type.
+     */
+    @Override
+    public PresignedUpload presignPut(String key, String contentType, String cacheControl, Instant expiresAt) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucket, key, HttpMethod.PUT)
+                .withExpiration(Date.from(expiresAt))
+                .withContentType(contentType);
+        request.putCustomRequestHeader(Headers.S3_CANNED_ACL, CannedAccessControlList.PublicRead.toString());
+        request.putCustomRequestHeader(Headers.CACHE_CONTROL, cacheControl);
+        return PresignedUpload.builder()
+                .url(s3.generatePresignedUrl(request).toString())
+                .headers(Map.of(
+                        Headers.CONTENT_TYPE, contentType,
+                        Headers.S3_CANNED_ACL, CannedAccessControlList.PublicRead.toString(),
+                        Headers.CACHE_CONTROL, cacheControl))
+                .build();
+    }
+}
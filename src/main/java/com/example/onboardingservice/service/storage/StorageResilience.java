@@ -0,0 +1,368 @@
+package com.example.onboardingservice.service.storage;
+
+import com.amazonaws.AmazonServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Guards the requests {@link S3ObjectStorage} sends to the bucket:
+ * <ul>
+ *     <li>every request runs on {@code storageCallExecutor} and the caller waits at most the operation's
+ *     timeout ({@code storage.resilience.timeout-ms.*}), so a hanging bucket cannot pin request threads;</li>
+ *     <li>reads still running after the operation's recent p95 latency are sent a second time and the first
+ *     answer wins, the other is discarded;</li>
+ *     <li>after {@code storage.resilience.failure-threshold} consecutive failures the circuit opens and calls
+ *     fail at once with {@link StorageUnavailableException} for {@code storage.resilience.open-ms}, after which
+ *     a single probe decides whether it closes again.</li>
+ * </ul>
+ * Client errors such as 404 count as answers, not failures. Latencies are published per operation
+ * as the {@code storage.requests} histogram.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+@Slf4j
+public class StorageResilience {
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+
+    private final ExecutorService storageCallExecutor;
+    private final Map<String, Operation> operations;
+    private final CircuitBreaker circuitBreaker;
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayNanos;
+    private final Counter hedgeCounter;
+    private final Counter rejectedCounter;
+
+    public StorageResilience(@Qualifier("storageCallExecutor") ExecutorService storageCallExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${storage.resilience.timeout-ms.get:10000}") long getTimeoutMs,
+                             @Value("${storage.resilience.timeout-ms.head:3000}") long headTimeoutMs,
+                             @Value("${storage.resilience.timeout-ms.list:30000}") long listTimeoutMs,
+                             @Value("${storage.resilience.timeout-ms.delete:10000}") long deleteTimeoutMs,
+                             @Value("${storage.resilience.hedge.enabled:true}") boolean hedgingEnabled,
+                             @Value("${storage.resilience.hedge.min-delay-ms:50}") long minHedgeDelayMs,
+                             @Value("${storage.resilience.failure-threshold:5}") int failureThreshold,
+                             @Value("${storage.resilience.open-ms:10000}") long openMs) {
+        this.storageCallExecutor = storageCallExecutor;
+        this.operations = Map.of(
+                "get", new Operation("get", getTimeoutMs, meterRegistry),
+                "head", new Operation("head", headTimeoutMs, meterRegistry),
+                "list", new Operation("list", listTimeoutMs, meterRegistry),
+                "delete", new Operation("delete", deleteTimeoutMs, meterRegistry),
+                // uploads run on the multipart uploader's own threads and are as long as the file
+                "put", new Operation("put", 0, meterRegistry));
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openMs));
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.hedgeCounter = Counter.builder("storage.requests.hedged")
+                .description("Reads sent a second time because the first was slower than the recent p95")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("storage.requests.rejected")
+                .description("Calls failed fast by the open circuit or a saturated call pool")
+                .register(meterRegistry);
+        Gauge.builder("storage.circuit.open", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while calls to the bucket are failed fast")
+                .register(meterRegistry);
+    }
+
+    /**
+     * An idempotent read: timed out, hedged, and guarded by the circuit. {@code discard} releases
+     * a result that lost the race to its hedge.
+     */
+    public <T> T read(String operation, Callable<T> call, Consumer<T> discard) throws IOException {
+        return execute(operations.get(operation), call, discard, hedgingEnabled);
+    }
+
+    /**
+     * A call that must not be duplicated: timed out and guarded by the circuit, never hedged.
+     */
+    public <T> T call(String operation, Callable<T> call) throws IOException {
+        return execute(operations.get(operation), call, result -> {
+        }, false);
+    }
+
+    /**
+     * Runs on the caller's thread without a timeout, for uploads; guarded by the circuit and timed.
+     */
+    public <T> T write(String operation, Callable<T> call) throws IOException {
+        Operation op = operations.get(operation);
+        permit(op);
+        long startedAt = System.nanoTime();
+        try {
+            T result = call.call();
+            circuitBreaker.onSuccess();
+            op.record("success", System.nanoTime() - startedAt);
+            return result;
+        } catch (Exception e) {
+            onError(op, e, System.nanoTime() - startedAt);
+            throw rethrow(e);
+        }
+    }
+
+    private <T> T execute(Operation op, Callable<T> call, Consumer<T> discard, boolean hedge) throws IOException {
+        permit(op);
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        try {
+            submit(call, result, running, discard);
+            T value;
+            long hedgeDelay = hedge ? op.hedgeDelayNanos() : 0;
+            if (hedgeDelay > 0 && hedgeDelay < op.timeoutNanos) {
+                try {
+                    value = result.get(hedgeDelay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    hedge(call, result, running, discard);
+                    value = result.get(op.timeoutNanos - hedgeDelay, TimeUnit.NANOSECONDS);
+                }
+            } else {
+                value = result.get(op.timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            circuitBreaker.onSuccess();
+            op.record("success", System.nanoTime() - startedAt);
+            return value;
+        } catch (TimeoutException e) {
+            // late results see the cancelled future and are discarded
+            result.cancel(true);
+            circuitBreaker.onFailure();
+            op.record("timeout", System.nanoTime() - startedAt);
+            throw new StorageUnavailableException("storage_timeout: " + op.name);
+        } catch (RejectedExecutionException e) {
+            result.cancel(true);
+            circuitBreaker.release();
+            rejectedCounter.increment();
+            throw new StorageUnavailableException("storage_saturated: " + op.name);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("storage_interrupted: " + op.name);
+        } catch (ExecutionException e) {
+            onError(op, e.getCause(), System.nanoTime() - startedAt);
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * A full call pool only costs the hedge, the first request keeps running.
+     */
+    private <T> void hedge(Callable<T> call, CompletableFuture<T> result, AtomicInteger running, Consumer<T> discard) {
+        running.incrementAndGet();
+        try {
+            submit(call, result, running, discard);
+            hedgeCounter.increment();
+        } catch (RejectedExecutionException e) {
+            if (running.decrementAndGet() == 0) {
+                // the first request failed in the meantime and left the result to this one
+                result.completeExceptionally(new StorageUnavailableException("storage_saturated"));
+            }
+        }
+    }
+
+    private <T> void submit(Callable<T> call, CompletableFuture<T> result, AtomicInteger running, Consumer<T> discard) {
+        storageCallExecutor.execute(() -> {
+            try {
+                T value = call.call();
+                if (!result.complete(value) && value != null) {
+                    discard.accept(value);
+                }
+            } catch (Throwable e) {
+                // a hedge still running may yet succeed
+                if (running.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private void permit(Operation op) throws StorageUnavailableException {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new StorageUnavailableException("storage_circuit_open: " + op.name);
+        }
+    }
+
+    private void onError(Operation op, Throwable error, long elapsedNanos) {
+        if (isAnswer(error)) {
+            circuitBreaker.onSuccess();
+            op.record("success", elapsedNanos);
+        } else {
+            circuitBreaker.onFailure();
+            op.record("error", elapsedNanos);
+        }
+    }
+
+    /**
+     * The bucket answered, just not with the object: missing key, access denied and the like.
+     */
+    private static boolean isAnswer(Throwable error) {
+        if (error instanceof FileNotFoundException) {
+            return true;
+        }
+        return error instanceof AmazonServiceException serviceException
+                && serviceException.getStatusCode() < SERVER_ERROR
+                && serviceException.getStatusCode() != TOO_MANY_REQUESTS;
+    }
+
+    private static IOException rethrow(Throwable error) {
+        if (error instanceof IOException ioException) {
+            return ioException;
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        return new IOException(error);
+    }
+
+    private final class Operation {
+        private static final int WINDOW = 512;
+        private static final int MIN_SAMPLES = 20;
+        private static final int RECOMPUTE_EVERY = 32;
+
+        private final String name;
+        private final long timeoutNanos;
+        private final Timer success;
+        private final Timer error;
+        private final Timer timeout;
+        /** Recent successful latencies, a ring buffer. Guarded by itself. */
+        private final long[] samples = new long[WINDOW];
+        private int recorded;
+        private volatile long p95Nanos;
+
+        private Operation(String name, long timeoutMs, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.timeoutNanos = timeoutMs > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE;
+            this.success = timer(name, "success", meterRegistry);
+            this.error = timer(name, "error", meterRegistry);
+            this.timeout = timer(name, "timeout", meterRegistry);
+        }
+
+        /**
+         * Zero until enough samples are in: without a p95 every read would be hedged, or none should be.
+         */
+        long hedgeDelayNanos() {
+            long p95 = p95Nanos;
+            return p95 == 0 ? 0 : Math.max(p95, minHedgeDelayNanos);
+        }
+
+        void record(String outcome, long elapsedNanos) {
+            switch (outcome) {
+                case "success" -> success.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                case "timeout" -> timeout.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                default -> error.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            if (!outcome.equals("success")) {
+                return;
+            }
+            synchronized (samples) {
+                samples[recorded % WINDOW] = elapsedNanos;
+                recorded++;
+                if (recorded >= MIN_SAMPLES && recorded % RECOMPUTE_EVERY == 0) {
+                    long[] sorted = Arrays.copyOf(samples, Math.min(recorded, WINDOW));
+                    Arrays.sort(sorted);
+                    p95Nanos = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+                }
+                if (recorded == 2 * WINDOW) {
+                    // keep the index small but past the window, so the buffer still counts as full
+                    recorded = WINDOW;
+                }
+            }
+        }
+
+        private static Timer timer(String operation, String outcome, MeterRegistry meterRegistry) {
+            return Timer.builder("storage.requests")
+                    .description("Latency of bucket requests by operation and outcome")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Closed, open after consecutive failures, then half open: one probe is let through and its
+     * outcome closes or reopens the circuit.
+     */
+    private static final class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openNanos;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean probing;
+
+        private CircuitBreaker(int failureThreshold, long openNanos) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (!open) {
+                return true;
+            }
+            if (probing || System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            if (open) {
+                log.info("storage_circuit_closed");
+            }
+            consecutiveFailures = 0;
+            open = false;
+            probing = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (probing || (!open && consecutiveFailures >= failureThreshold)) {
+                log.error("storage_circuit_opened: failures: " + consecutiveFailures);
+                open = true;
+                probing = false;
+                openedAt = System.nanoTime();
+            }
+        }
+
+        /**
+         * The call ended without telling anything about the bucket; lets the next call probe instead.
+         */
+        synchronized void release() {
+            probing = false;
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+    }
+}
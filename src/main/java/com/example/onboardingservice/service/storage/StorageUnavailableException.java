@@ -0,0 +1,12 @@
+package com.example.onboardingservice.service.storage;
+
+import java.io.IOException;
+
+/**
+ * The bucket did not answer in time, or the call was not attempted because the bucket is failing.
+ */
+public class StorageUnavailableException extends IOException {
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+}
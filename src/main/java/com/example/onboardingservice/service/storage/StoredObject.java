@@ -0,0 +1,20 @@
+package com.example.onboardingservice.service.storage;
+
+import java.io.Closeable;
+import java.io.InputStream;
+
+/**
+ * An open object. Closing it after reading only part of the content may drain the rest;
+ * {@link #abort()} drops the connection instead.
+ */
+public interface StoredObject extends Closeable {
+
+    InputStream content();
+
+    long size();
+
+    /** ETag of the version being read. */
+    String etag();
+
+    void abort();
+}
@@ -0,0 +1,82 @@
+package com.example.onboardingservice.web.config;
+
+import com.example.onboardingservice.service.UploadBudget;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Admits upload requests against {@link UploadBudget} before their body is read: multipart uploads
+ * and PUTs to the local storage backend. Requests that do not fit in time get 503 with Retry-After,
+ * requests that could never fit get 413. Bodies without a declared length are charged the largest
+ * request multipart accepts.
+ */
+@Slf4j
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+    /** The client an upload belongs to: /media-assets/{email}, /report/{email} or /storage/{root}/{email}/... */
+    private static final Pattern CLIENT = Pattern.compile("^/(?:media-assets|report|storage/[^/]+)/([^/]+)");
+
+    private final UploadBudget uploadBudget;
+    private final long maxRequestBytes;
+    private final long retryAfterSeconds;
+
+    public UploadAdmissionFilter(UploadBudget uploadBudget, long maxRequestBytes, long retryAfterSeconds) {
+        this.uploadBudget = uploadBudget;
+        this.maxRequestBytes = maxRequestBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        boolean multipart = request.getContentType() != null
+                && request.getContentType().toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+        boolean storagePut = "PUT".equals(request.getMethod()) && request.getServletPath().startsWith("/storage/");
+        return !multipart && !storagePut;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String client = client(request);
+        long bytes = request.getContentLengthLong() >= 0 ? request.getContentLengthLong() : maxRequestBytes;
+        if (bytes > uploadBudget.limitFor(client)) {
+            log.error("upload_admission_too_large: " + client + " " + bytes);
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        Optional<UploadBudget.Reservation> reservation;
+        try {
+            reservation = uploadBudget.reserve(client, bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        if (reservation.isEmpty()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        try (UploadBudget.Reservation ignored = reservation.get()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static String client(HttpServletRequest request) {
+        Matcher matcher = CLIENT.matcher(request.getServletPath());
+        return matcher.find() ? matcher.group(1) : request.getRemoteAddr();
+    }
+}
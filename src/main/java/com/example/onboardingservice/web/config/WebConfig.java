@@ -2,21 +2,56 @@ package com.example.onboardingservice.web.config;
 
 import com.example.onboardingservice.service.JsonParserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @RequiredArgsConstructor
 //@EnableMethodSecurity(securedEnabled = true)
 public class WebConfig implements WebMvcConfigurer {
     private final JsonParserService jsonParserService;
+    @Value("${storage.zip.stream-timeout-ms:1800000}")
+    private long zipStreamTimeoutMs;
+    @Value("${storage.zip.stream-threads:32}")
+    private int zipStreamThreads;
+    @Value("${storage.zip.stream-queue-capacity:64}")
+    private int zipStreamQueueCapacity;
 
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
         argumentResolvers.add(new RequestDataArgumentResolver(jsonParserService));
         argumentResolvers.add(new VersionArgumentResolver());
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // zip archives are streamed from an async thread, the container default (30s) would cut large downloads off
+        configurer.setDefaultTimeout(zipStreamTimeoutMs);
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+
+    /**
+     * Runs streamed responses. The executor beans of the storage layer keep Boot from creating its own,
+     * so without this Spring MVC would start an unbounded thread per download. When every thread is busy
+     * and the queue is full the request is rejected instead of piling up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(zipStreamThreads);
+        executor.setMaxPoolSize(zipStreamThreads);
+        executor.setQueueCapacity(zipStreamQueueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
 }
@@ -1,10 +1,11 @@
 package com.example.onboardingservice.web.controller;
 
 import com.example.onboardingservice.exception.*;
-import com.example.onboardingservice.model.Client;
 import com.example.onboardingservice.model.Role;
 import com.example.onboardingservice.model.User;
-import com.example.onboardingservice.service.NoteService;
+import com.example.onboardingservice.model.dto.ReportStorageUsageDto;
+import com.example.onboardingservice.service.ClientProfileService;
+import com.example.onboardingservice.service.StorageUsageService;
 import com.example.onboardingservice.service.UserService;
 import com.example.onboardingservice.web.httpData.client.*;
 import com.example.onboardingservice.web.util.RequestData;
@@ -31,7 +32,8 @@ import java.util.stream.Collectors;
 @Tag(name = "Client", description = "Endpoints for CRUD operations on clients")
 public class ClientController {
     private final UserService userService;
-    private final NoteService noteService;
+    private final ClientProfileService clientProfileService;
+    private final StorageUsageService storageUsageService;
 
     @Secured("MANAGER")
     @Operation(summary = "List clients", description = "Lists all clients in the database")
@@ -42,9 +44,41 @@ public class ClientController {
     @GetMapping("/list")
     public ResponseEntity<ClientListResponse> list() {
         log.info("returning_clients_list");
-        var users = userService.listByRole(Role.CLIENT);
         var response = ClientListResponse.builder()
-                .clients(users.stream().map(u -> (Client) u).collect(Collectors.toList()))
+                .clients(userService.listClients())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @Secured("MANAGER")
+    @Operation(summary = "Get client storage usage", description = """
+            Bytes and number of images the client has stored, in total and per report,
+            and the client's quota if one is set.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fetched successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No client specified"),
+            @ApiResponse(responseCode = "403", description = "Forbidden. Accessible only for MANAGER")
+    })
+    @GetMapping("/storage-usage/{clientEmail}")
+    public ResponseEntity<ClientStorageUsageResponse> getStorageUsage(
+            @PathVariable("clientEmail") String clientEmail) {
+        if (clientEmail == null || clientEmail.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        log.info("returning_storage_usage: " + clientEmail);
+        var usage = storageUsageService.getClientUsage(clientEmail);
+        var response = ClientStorageUsageResponse.builder()
+                .totalBytes(usage.getBytes())
+                .objectCount(usage.getObjects())
+                .quotaBytes(storageUsageService.getQuota(clientEmail))
+                .reports(storageUsageService.getReportUsages(clientEmail).stream()
+                        .map(report -> ReportStorageUsageDto.builder()
+                                .reportId(report.getReportId())
+                                .bytes(report.getBytes())
+                                .objectCount(report.getObjects())
+                                .build())
+                        .collect(Collectors.toList()))
                 .build();
         return ResponseEntity.ok(response);
     }
@@ -70,22 +104,23 @@ public class ClientController {
         }
         log.info("returning_client: " + clientEmail);
         try {
-            var client = userService.findClientByEmail(clientEmail);
+            var profile = clientProfileService.getProfile(clientEmail);
+            if (profile.getUsefulInfoContent() == null || profile.getContactDetailsContent() == null) {
+                log.error("note_not_found: " + clientEmail);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
             var response = ClientGetDataResponse.builder()
-                    .fullName(client.getFullName())
-                    .formAnswers(client.getFormAnswers())
-                    .onboardingStages(client.getOnboardingStages())
-                    .activeStage(client.getActiveStage())
-                    .usefulInfoContent(noteService.getUsefulInfo(clientEmail).getContent())
-                    .contactDetailsContent(noteService.getContactDetails(clientEmail).getContent())
+                    .fullName(profile.getFullName())
+                    .formAnswers(profile.getFormAnswers())
+                    .onboardingStages(profile.getOnboardingStages())
+                    .activeStage(profile.getActiveStage())
+                    .usefulInfoContent(profile.getUsefulInfoContent())
+                    .contactDetailsContent(profile.getContactDetailsContent())
                     .build();
             return ResponseEntity.ok(response);
         } catch (UserNotFoundException e) {
             log.error("user_not_found: " + clientEmail);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (NoteNotFoundException e) {
-            log.error("note_not_found: " + clientEmail);
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
@@ -0,0 +1,118 @@
+package com.example.onboardingservice.web.controller;
+
+import com.example.onboardingservice.service.storage.LocalObjectStorage;
+import com.example.onboardingservice.service.storage.ObjectInfo;
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Public read and signed write access to {@link LocalObjectStorage}, standing in for the bucket
+ * endpoint when {@code storage.backend=local}; {@code storage.base-url} then points here.
+ */
+@RestController
+@RequestMapping(path = "/storage")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+@AllArgsConstructor
+@Slf4j
+@Hidden
+public class LocalStorageController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+    private final LocalObjectStorage localObjectStorage;
+
+    /**
+     * Lets Tomcat send the file itself when the connector supports sendfile; otherwise the file
+     * channel is transferred straight into the response.
+     */
+    @GetMapping("/{*key}")
+    public void getObject(@PathVariable("key") String key,
+                          HttpServletRequest request,
+                          HttpServletResponse response,
+                          WebRequest webRequest) throws IOException {
+        String objectKey = key.substring(1);
+        Optional<ObjectInfo> info;
+        try {
+            info = localObjectStorage.head(objectKey);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        if (info.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (webRequest.checkNotModified("\"" + info.get().getEtag() + "\"")) {
+            return;
+        }
+        long size = info.get().getSize();
+        response.setContentType(info.get().getContentType());
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        Path path = localObjectStorage.resolve(objectKey);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            // the file may have been replaced by a shorter one since the HEAD, never wait for bytes that are not there
+            long end = Math.min(size, channel.size());
+            long position = 0;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            if (position < size) {
+                log.error("local_object_truncated: " + objectKey + " " + position + "/" + size);
+            }
+        }
+    }
+
+    @PutMapping("/{*key}")
+    public ResponseEntity<Void> putObject(@PathVariable("key") String key,
+                                          @RequestParam("expires") long expires,
+                                          @RequestParam("signature") String signature,
+                                          @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                          HttpServletRequest request) throws IOException {
+        String objectKey = key.substring(1);
+        if (!localObjectStorage.verifyUpload(objectKey, contentType, expires, signature)) {
+            log.error("local_upload_rejected: " + objectKey);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String etag = localObjectStorage.put(
+                objectKey, request.getInputStream(), request.getContentLengthLong(), contentType, CACHE_CONTROL);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .build();
+    }
+}
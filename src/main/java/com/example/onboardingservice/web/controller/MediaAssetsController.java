@@ -1,12 +1,23 @@
 package com.example.onboardingservice.web.controller;
 
 import com.example.onboardingservice.exception.DownloadingImagesException;
+import com.example.onboardingservice.exception.InvalidUploadException;
+import com.example.onboardingservice.exception.QuotaExceededException;
 import com.example.onboardingservice.model.Role;
 import com.example.onboardingservice.model.User;
+import com.example.onboardingservice.model.dto.ImageUploadResult;
+import com.example.onboardingservice.service.DirectUploadService;
 import com.example.onboardingservice.service.ImageService;
 import com.example.onboardingservice.web.httpData.mediaAssets.MediaAssetsGetResponse;
+import com.example.onboardingservice.web.httpData.mediaAssets.MediaAssetsPutResponse;
+import com.example.onboardingservice.web.httpData.mediaAssets.MediaAssetsUploadCompleteRequest;
+import com.example.onboardingservice.web.httpData.mediaAssets.MediaAssetsUploadSessionRequest;
+import com.example.onboardingservice.web.httpData.mediaAssets.MediaAssetsUploadSessionResponse;
+import com.example.onboardingservice.web.util.RequestData;
+import com.example.onboardingservice.web.util.ZipArchiveResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,7 +29,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 
@@ -29,16 +42,21 @@ import java.io.IOException;
 @Tag(name = "Media assets", description = "Endpoints for loading and downloading meida assets")
 public class MediaAssetsController {
     private final ImageService imageService;
+    private final DirectUploadService directUploadService;
 
     @Secured("CLIENT")
     @Operation(summary = "Save media assets", description = "Load media assets images into the storage.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Saved successfully"),
+            @ApiResponse(responseCode = "207", description = "Some files were not saved. The outcome of each file is in the response"),
             @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to get another client's data. Accessible only for clients"),
-            @ApiResponse(responseCode = "400", description = "Bad Request. Arguments are not base64 encoded images")
+            @ApiResponse(responseCode = "400", description = "Bad Request. Arguments are not base64 encoded images"),
+            @ApiResponse(responseCode = "413", description = "Payload Too Large. The upload exceeds what the client may have in flight"),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable. Too many uploads in flight, retry after the Retry-After seconds"),
+            @ApiResponse(responseCode = "507", description = "Insufficient Storage. The upload would exceed the client's storage quota")
     })
     @PutMapping("/{clientEmail}")
-    public ResponseEntity<Void> putMediaAssets(
+    public ResponseEntity<MediaAssetsPutResponse> putMediaAssets(
             @Parameter(description = """
                     And email of the client who had uploaded the images
                     """, required = true)
@@ -56,14 +74,93 @@ public class MediaAssetsController {
         }
         log.info("saving_media_assets: " + clientEmail);
         try {
-            imageService.uploadMediaAssets(
+            var results = imageService.uploadMediaAssets(
                     files,
                     clientEmail);
-            return ResponseEntity.status(HttpStatus.OK).build();
-        } catch (IOException e) {
+            var response = MediaAssetsPutResponse.builder()
+                    .files(results)
+                    .build();
+            var status = results.stream().allMatch(ImageUploadResult::isUploaded) ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        } catch (QuotaExceededException e) {
+            log.error("quota_exceeded: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        }
+    }
+
+    @Secured("CLIENT")
+    @Operation(summary = "Start a direct media assets upload", description = """
+            Returns a pre-signed PUT URL per file. The files are uploaded straight into the storage
+            with the returned headers and then registered with the completion endpoint.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload URLs issued"),
+            @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to upload another client's data. Accessible only for clients"),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No files, or a file name, size or content type is invalid"),
+            @ApiResponse(responseCode = "507", description = "Insufficient Storage. The files would exceed the client's storage quota")
+    })
+    @PostMapping("/{clientEmail}/upload-session")
+    public ResponseEntity<MediaAssetsUploadSessionResponse> createUploadSession(
+            @RequestBody(description = "Name, content type and size of each file", required = true)
+            @RequestData MediaAssetsUploadSessionRequest request,
+            @PathVariable("clientEmail") String clientEmail) {
+        if (clientEmail == null || clientEmail.isBlank()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (user.getRole() == Role.CLIENT && !user.getEmail().equals(clientEmail)) {
+            log.error("creating_media_assets_upload_session: " + clientEmail + " by: " + user.getEmail());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("creating_media_assets_upload_session: " + clientEmail);
+        try {
+            var slots = directUploadService.createMediaAssetsSession(request.getFiles(), clientEmail);
+            var response = MediaAssetsUploadSessionResponse.builder()
+                    .files(slots)
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (InvalidUploadException e) {
+            log.error("invalid_upload: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (QuotaExceededException e) {
+            log.error("quota_exceeded: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        }
+    }
 
+    @Secured("CLIENT")
+    @Operation(summary = "Complete a direct media assets upload", description = "Verify the uploaded files and register them.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All files registered"),
+            @ApiResponse(responseCode = "207", description = "Some files were not registered. The outcome of each file is in the response"),
+            @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to upload another client's data. Accessible only for clients"),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No files, or a file name is invalid")
+    })
+    @PostMapping("/{clientEmail}/upload-session/complete")
+    public ResponseEntity<MediaAssetsPutResponse> completeUploadSession(
+            @RequestBody(description = "Names of the uploaded files", required = true)
+            @RequestData MediaAssetsUploadCompleteRequest request,
+            @PathVariable("clientEmail") String clientEmail) {
+        if (clientEmail == null || clientEmail.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (user.getRole() == Role.CLIENT && !user.getEmail().equals(clientEmail)) {
+            log.error("completing_media_assets_upload: " + clientEmail + " by: " + user.getEmail());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("completing_media_assets_upload: " + clientEmail);
+        try {
+            var results = directUploadService.completeMediaAssets(request.getFilenames(), clientEmail);
+            var response = MediaAssetsPutResponse.builder()
+                    .files(results)
+                    .build();
+            var status = results.stream().allMatch(ImageUploadResult::isUploaded) ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        } catch (InvalidUploadException e) {
+            log.error("invalid_upload: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @Secured("MANAGER")
@@ -83,10 +180,11 @@ public class MediaAssetsController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         log.info("fetching_media_assets: " + clientEmail);
-        var imageUrls = imageService.getMediaAssets(clientEmail);
-        log.info(String.join(",", imageUrls));
+        var images = imageService.getMediaAssets(clientEmail);
+        log.info(String.join(",", images.getImageUrls()));
         var response = MediaAssetsGetResponse.builder()
-                .imageUrls(imageUrls)
+                .imageUrls(images.getImageUrls())
+                .previewUrls(images.getPreviewUrls())
                 .build();
         return ResponseEntity.ok(response);
     }
@@ -95,24 +193,28 @@ public class MediaAssetsController {
     @Operation(summary = "Get media assets zipped", description = "Get zip archive with media assets for this client.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched successfully"),
+            @ApiResponse(responseCode = "206", description = "Partial Content. The requested byte range of the archive"),
+            @ApiResponse(responseCode = "304", description = "Not Modified. The archive matches the If-None-Match ETag"),
+            @ApiResponse(responseCode = "416", description = "Range Not Satisfiable. The range starts past the end of the archive"),
             @ApiResponse(responseCode = "403", description = "Forbidden. Accessible only for MANAGER"),
             @ApiResponse(responseCode = "400", description = "Bad Request. No client specified"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error. Failed to download objects")
     })
     @GetMapping(value = "/zipped/{clientEmail}", produces = "application/zip")
-    public ResponseEntity<byte[]> getMediaAssetsZipped(
+    public ResponseEntity<StreamingResponseBody> getMediaAssetsZipped(
             @Parameter(description = """
                     Email of the client who had uploaded the images
                     """, required = true)
-            @PathVariable("clientEmail") String clientEmail) {
+            @PathVariable("clientEmail") String clientEmail,
+            WebRequest webRequest) {
         if (clientEmail == null || clientEmail.isBlank()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         log.info("fetching_media_assets_zipped: " + clientEmail);
         try {
             var mediaAssetsZipped = imageService.getMediaAssetsZipped(clientEmail);
-            return ResponseEntity.ok(mediaAssetsZipped);
-        } catch (DownloadingImagesException e) {
+            return ZipArchiveResponses.respond(mediaAssetsZipped, webRequest);
+        } catch (DownloadingImagesException | IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -8,6 +8,7 @@ import com.example.onboardingservice.service.NoteService;
 import com.example.onboardingservice.web.httpData.note.*;
 import com.example.onboardingservice.web.util.RequestData;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -29,17 +30,22 @@ import org.springframework.web.bind.annotation.*;
 public class NoteController {
     private final NoteService noteService;
 
-    @Operation(summary = "Get meeting notes", description = "Lists all meeting notes of the client")
+    @Operation(summary = "Get meeting notes", description = "Lists meeting notes of the client, newest first, "
+            + "a page at a time. The next page is fetched by passing nextCursor of the previous one as cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched successfully"),
             @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to get another client's data"),
-            @ApiResponse(responseCode = "400", description = "Bad Request. Request field is null")
+            @ApiResponse(responseCode = "400", description = "Bad Request. Request field is null, limit is not positive or cursor is invalid")
     })
     @GetMapping("/meeting-notes/{clientEmail}")
     public ResponseEntity<NoteGetMeetingNotesResponse> getMeetingNotes(
             @RequestBody(description = "Client email", required = true)
-            @PathVariable("clientEmail") String clientEmail) {
-        if (clientEmail == null || clientEmail.isBlank()) {
+            @PathVariable("clientEmail") String clientEmail,
+            @Parameter(description = "nextCursor of the previous page; omitted for the first page")
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Page size, at most 100")
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (clientEmail == null || clientEmail.isBlank() || limit < 1) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -48,11 +54,17 @@ public class NoteController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         log.info("returning_meeting_notes: " + clientEmail);
-        var meetingNotes = noteService.listMeetingNotes(clientEmail);
-        var response = NoteGetMeetingNotesResponse.builder()
-                .meetingNotes(meetingNotes)
-                .build();
-        return ResponseEntity.ok(response);
+        try {
+            var page = noteService.listMeetingNotes(clientEmail, cursor, limit);
+            var response = NoteGetMeetingNotesResponse.builder()
+                    .meetingNotes(page.getItems())
+                    .nextCursor(page.getNextCursor())
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (InvalidCursorException e) {
+            log.error("invalid_cursor: " + clientEmail + " " + cursor);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @Operation(summary = "Get meeting note by id", description = "Returns a meeting note by email and id")
@@ -3,6 +3,7 @@ package com.example.onboardingservice.web.controller;
 import com.example.onboardingservice.exception.*;
 import com.example.onboardingservice.model.Role;
 import com.example.onboardingservice.model.User;
+import com.example.onboardingservice.model.dto.ImageUploadResult;
 import com.example.onboardingservice.service.ImageService;
 import com.example.onboardingservice.service.NoteService;
 import com.example.onboardingservice.service.ReportService;
@@ -10,7 +11,12 @@ import com.example.onboardingservice.web.httpData.note.*;
 import com.example.onboardingservice.web.httpData.report.ReportDeleteResponse;
 import com.example.onboardingservice.web.httpData.report.ReportGetByIdResponse;
 import com.example.onboardingservice.web.httpData.report.ReportGetResponse;
+import com.example.onboardingservice.web.httpData.report.ReportPutResponse;
+import com.example.onboardingservice.web.httpData.report.ReportUploadCompleteRequest;
+import com.example.onboardingservice.web.httpData.report.ReportUploadSessionRequest;
+import com.example.onboardingservice.web.httpData.report.ReportUploadSessionResponse;
 import com.example.onboardingservice.web.util.RequestData;
+import com.example.onboardingservice.web.util.ZipArchiveResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
@@ -25,7 +31,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 
@@ -39,17 +47,22 @@ public class ReportController {
     private final ImageService imageService;
 
 
-    @Operation(summary = "Get reports", description = "Lists all reports for the client")
+    @Operation(summary = "Get reports", description = "Lists reports for the client, newest first, "
+            + "a page at a time. The next page is fetched by passing nextCursor of the previous one as cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched successfully"),
             @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to get another client's data"),
-            @ApiResponse(responseCode = "400", description = "Bad Request. Request field is null")
+            @ApiResponse(responseCode = "400", description = "Bad Request. Request field is null, limit is not positive or cursor is invalid")
     })
     @GetMapping("/{clientEmail}")
     public ResponseEntity<ReportGetResponse> getReports(
             @RequestBody(description = "Client email", required = true)
-            @PathVariable("clientEmail") String clientEmail) {
-        if (clientEmail == null || clientEmail.isBlank()) {
+            @PathVariable("clientEmail") String clientEmail,
+            @Parameter(description = "nextCursor of the previous page; omitted for the first page")
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Page size, at most 100")
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (clientEmail == null || clientEmail.isBlank() || limit < 1) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -58,11 +71,17 @@ public class ReportController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         log.info("returning_reports: " + clientEmail);
-        var reports = reportService.listReportsWithImages(clientEmail);
-        var response = ReportGetResponse.builder()
-                .reports(reports)
-                .build();
-        return ResponseEntity.ok(response);
+        try {
+            var page = reportService.listReportsWithImages(clientEmail, cursor, limit);
+            var response = ReportGetResponse.builder()
+                    .reports(page.getItems())
+                    .nextCursor(page.getNextCursor())
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (InvalidCursorException e) {
+            log.error("invalid_cursor: " + clientEmail + " " + cursor);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
 
@@ -103,11 +122,15 @@ public class ReportController {
     @Operation(summary = "Save paid advertising report", description = "Upload paid advertising reports images into the storage.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Saved successfully"),
+            @ApiResponse(responseCode = "207", description = "Some files were not saved. The outcome of each file is in the response"),
             @ApiResponse(responseCode = "403", description = "Forbidden. Accessible only for MANAGER"),
-            @ApiResponse(responseCode = "400", description = "Bad Request. Arguments are not media files")
+            @ApiResponse(responseCode = "400", description = "Bad Request. Arguments are not media files"),
+            @ApiResponse(responseCode = "413", description = "Payload Too Large. The upload exceeds what the client may have in flight"),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable. Too many uploads in flight, retry after the Retry-After seconds"),
+            @ApiResponse(responseCode = "507", description = "Insufficient Storage. The upload would exceed the client's storage quota")
     })
     @PutMapping("/{clientEmail}")
-    public ResponseEntity<Void> putPaidAdvertisingReports(
+    public ResponseEntity<ReportPutResponse> putPaidAdvertisingReports(
             @Parameter(description = """
                     Email of the client who receives the messages
                     """, required = true)
@@ -123,33 +146,117 @@ public class ReportController {
         }
         log.info("saving_paid_advertising_report: " + clientEmail);
         try {
-            reportService.save(
+            var results = reportService.save(
                     clientEmail,
                     reportName,
                     files);
-            return ResponseEntity.status(HttpStatus.OK).build();
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            var response = ReportPutResponse.builder()
+                    .files(results)
+                    .build();
+            var status = results.stream().allMatch(ImageUploadResult::isUploaded) ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
         } catch (UserNotFoundException e) {
             log.error("user_not_found: " + clientEmail);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (QuotaExceededException e) {
+            log.error("quota_exceeded: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        }
+    }
+
+    @Secured("MANAGER")
+    @Operation(summary = "Start a direct report upload", description = """
+            Returns a pre-signed PUT URL per file of an existing report. The files are uploaded straight
+            into the storage with the returned headers and then registered with the completion endpoint.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Upload URLs issued"),
+            @ApiResponse(responseCode = "403", description = "Forbidden. Accessible only for MANAGER"),
+            @ApiResponse(responseCode = "404", description = "Not Found. The client has no such report"),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No files, or a file name, size or content type is invalid"),
+            @ApiResponse(responseCode = "507", description = "Insufficient Storage. The files would exceed the client's storage quota")
+    })
+    @PostMapping("/{clientEmail}/{reportId}/upload-session")
+    public ResponseEntity<ReportUploadSessionResponse> createUploadSession(
+            @RequestBody(description = "Name, content type and size of each file", required = true)
+            @RequestData ReportUploadSessionRequest request,
+            @PathVariable("clientEmail") String clientEmail,
+            @PathVariable("reportId") Long reportId) {
+        if (clientEmail == null || clientEmail.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        log.info("creating_report_upload_session: " + clientEmail + " " + reportId);
+        try {
+            var slots = reportService.createUploadSession(clientEmail, reportId, request.getFiles());
+            var response = ReportUploadSessionResponse.builder()
+                    .files(slots)
+                    .build();
+            return ResponseEntity.ok(response);
+        } catch (ReportNotFoundException e) {
+            log.error("report_not_found: " + clientEmail + " " + reportId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (InvalidUploadException e) {
+            log.error("invalid_upload: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (QuotaExceededException e) {
+            log.error("quota_exceeded: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+        }
+    }
+
+    @Secured("MANAGER")
+    @Operation(summary = "Complete a direct report upload", description = "Verify the uploaded files and register them with the report.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All files registered"),
+            @ApiResponse(responseCode = "207", description = "Some files were not registered. The outcome of each file is in the response"),
+            @ApiResponse(responseCode = "403", description = "Forbidden. Accessible only for MANAGER"),
+            @ApiResponse(responseCode = "404", description = "Not Found. The client has no such report"),
+            @ApiResponse(responseCode = "400", description = "Bad Request. No files, or a file name is invalid")
+    })
+    @PostMapping("/{clientEmail}/{reportId}/upload-session/complete")
+    public ResponseEntity<ReportPutResponse> completeUploadSession(
+            @RequestBody(description = "Names of the uploaded files", required = true)
+            @RequestData ReportUploadCompleteRequest request,
+            @PathVariable("clientEmail") String clientEmail,
+            @PathVariable("reportId") Long reportId) {
+        if (clientEmail == null || clientEmail.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        log.info("completing_report_upload: " + clientEmail + " " + reportId);
+        try {
+            var results = reportService.completeUpload(clientEmail, reportId, request.getFilenames());
+            var response = ReportPutResponse.builder()
+                    .files(results)
+                    .build();
+            var status = results.stream().allMatch(ImageUploadResult::isUploaded) ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        } catch (ReportNotFoundException e) {
+            log.error("report_not_found: " + clientEmail + " " + reportId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (InvalidUploadException e) {
+            log.error("invalid_upload: " + clientEmail + " " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     @Operation(summary = "Get a report zipped", description = "Get zip archive with report for this client.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fetched successfully"),
+            @ApiResponse(responseCode = "206", description = "Partial Content. The requested byte range of the archive"),
+            @ApiResponse(responseCode = "304", description = "Not Modified. The archive matches the If-None-Match ETag"),
+            @ApiResponse(responseCode = "416", description = "Range Not Satisfiable. The range starts past the end of the archive"),
             @ApiResponse(responseCode = "403", description = "Forbidden. A client is trying to get another client's data"),
             @ApiResponse(responseCode = "400", description = "Bad Request. No client specified"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error. Failed to download objects")
     })
     @GetMapping(value = "/zipped/{clientEmail}/{reportId}", produces = "application/zip")
-    public ResponseEntity<byte[]> getReportZipped(
+    public ResponseEntity<StreamingResponseBody> getReportZipped(
             @Parameter(description = """
                     Email of the client who had uploaded the images
                     """, required = true)
             @PathVariable("clientEmail") String clientEmail,
-            @PathVariable("reportId") Long reportId) {
+            @PathVariable("reportId") Long reportId,
+            WebRequest webRequest) {
         if (clientEmail == null || clientEmail.isBlank()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -161,8 +268,8 @@ public class ReportController {
         log.info("fetching_report_zipped: " + clientEmail);
         try {
             var reportZipped = imageService.getPaidAdvertisingReportZipped(clientEmail, reportId);
-            return ResponseEntity.ok(reportZipped);
-        } catch (DownloadingImagesException e) {
+            return ZipArchiveResponses.respond(reportZipped, webRequest);
+        } catch (DownloadingImagesException | IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
@@ -1,6 +1,6 @@
 package com.example.onboardingservice.web.httpData.client;
 
-import com.example.onboardingservice.model.Client;
+import com.example.onboardingservice.model.dto.ClientSummaryDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Builder;
 import lombok.Data;
@@ -13,6 +13,6 @@ import java.util.List;
 @Jacksonized
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ClientListResponse {
-    private List<Client> clients;
+    private List<ClientSummaryDto> clients;
 }
 
@@ -0,0 +1,24 @@
+package com.example.onboardingservice.web.httpData.client;
+
+import com.example.onboardingservice.model.dto.ReportStorageUsageDto;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Data
+@Builder
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ClientStorageUsageResponse {
+    @Schema(example = "52428800")
+    private long totalBytes;
+    @Schema(example = "42")
+    private long objectCount;
+    @Schema(description = "Null if no quota is set", example = "1073741824")
+    private Long quotaBytes;
+    private List<ReportStorageUsageDto> reports;
+}
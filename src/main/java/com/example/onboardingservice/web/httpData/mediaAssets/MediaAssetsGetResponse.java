@@ -13,4 +13,5 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MediaAssetsGetResponse {
     private List<String> imageUrls;
+    private List<String> previewUrls;
 }
@@ -0,0 +1,18 @@
+package com.example.onboardingservice.web.httpData.mediaAssets;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Data
+@Builder
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MediaAssetsUploadCompleteRequest {
+    @Schema(example = "[\"banner.jpg\",\"logo.png\"]")
+    private List<String> filenames;
+}
@@ -0,0 +1,17 @@
+package com.example.onboardingservice.web.httpData.mediaAssets;
+
+import com.example.onboardingservice.model.dto.UploadSlotDto;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+@Data
+@Builder
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MediaAssetsUploadSessionResponse {
+    private List<UploadSlotDto> files;
+}
@@ -1,6 +1,6 @@
 package com.example.onboardingservice.web.httpData.note;
 
-import com.example.onboardingservice.model.Note;
+import com.example.onboardingservice.model.dto.NoteDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Builder;
 import lombok.Data;
@@ -13,5 +13,5 @@ import java.util.List;
 @Jacksonized
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class NoteDeleteMeetingNoteResponse {
-    private List<Note> meetingNotes;
+    private List<NoteDto> meetingNotes;
 }
@@ -1,6 +1,6 @@
 package com.example.onboardingservice.web.httpData.note;
 
-import com.example.onboardingservice.model.Note;
+import com.example.onboardingservice.model.dto.NoteDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Builder;
 import lombok.Data;
@@ -13,5 +13,7 @@ import java.util.List;
 @Jacksonized
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class NoteGetMeetingNotesResponse {
-    List<Note> meetingNotes;
+    List<NoteDto> meetingNotes;
+    /** Pass as ?cursor= to get the next page; null on the last page. */
+    String nextCursor;
 }
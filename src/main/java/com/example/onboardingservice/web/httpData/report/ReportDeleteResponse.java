@@ -1,7 +1,6 @@
 package com.example.onboardingservice.web.httpData.report;
 
-import com.example.onboardingservice.model.Note;
-import com.example.onboardingservice.model.Report;
+import com.example.onboardingservice.model.dto.ReportDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +13,5 @@ import java.util.List;
 @Jacksonized
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ReportDeleteResponse {
-    private List<Report> reports;
+    private List<ReportDto> reports;
 }
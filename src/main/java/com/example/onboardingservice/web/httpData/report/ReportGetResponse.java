@@ -16,4 +16,6 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ReportGetResponse {
     private List<ReportWithImagesDto> reports;
+    /** Pass as ?cursor= to get the next page; null on the last page. */
+    private String nextCursor;
 }
@@ -0,0 +1,134 @@
+package com.example.onboardingservice.web.util;
+
+import com.example.onboardingservice.model.dto.ZipArchiveDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Turns a zip archive into a response: 304 for a matching If-None-Match, 206 for a single
+ * satisfiable byte range (honouring If-Range) of an archive already cached, otherwise the whole archive.
+ * Multi-range requests get the whole archive, which RFC 9110 allows; so do ranges of an archive not
+ * built yet, rather than holding the request until it is.
+ */
+public final class ZipArchiveResponses {
+    private static final String BYTES = "bytes";
+
+    private ZipArchiveResponses() {
+    }
+
+    /**
+     * @return null when the response has been completed as 304 Not Modified
+     */
+    public static ResponseEntity<StreamingResponseBody> respond(ZipArchiveDto archive, WebRequest webRequest)
+            throws IOException {
+        if (webRequest.checkNotModified(archive.getEtag())) {
+            // 304 and the ETag header are already set on the response
+            return null;
+        }
+
+        // opened now, so an eviction after this point cannot cut the body short of the announced length
+        Optional<FileChannel> cached = open(archive.getCachedFile());
+        String range = webRequest.getHeader(HttpHeaders.RANGE);
+        if (cached.isPresent() && range != null
+                && rangeApplies(webRequest.getHeader(HttpHeaders.IF_RANGE), archive.getEtag())) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                return partial(cached.get(), ranges.get(0));
+            }
+        }
+
+        // without a cached copy the whole archive is streamed, which builds the copy later ranges are served from
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (archive.isRangesSupported()) {
+            response.header(HttpHeaders.ACCEPT_RANGES, BYTES);
+        }
+        if (cached.isPresent()) {
+            long length = cached.get().size();
+            return response.contentLength(length).body(region(cached.get(), 0, length));
+        }
+        return response.body(archive.getBody());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> partial(FileChannel channel, HttpRange range) throws IOException {
+        long length = channel.size();
+        long start = range.getRangeStart(length);
+        long end = range.getRangeEnd(length);
+        if (start >= length || start > end) {
+            channel.close();
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, BYTES + " */" + length)
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.ACCEPT_RANGES, BYTES)
+                .header(HttpHeaders.CONTENT_RANGE, BYTES + " " + start + "-" + end + "/" + length)
+                .contentLength(end - start + 1)
+                .body(region(channel, start, end - start + 1));
+    }
+
+    /**
+     * Empty if there is no cached archive or it has been evicted since it was looked up.
+     */
+    private static Optional<FileChannel> open(Path file) throws IOException {
+        if (file == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(FileChannel.open(file, StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the region and closes the channel. The file stays readable through the channel even if
+     * it is evicted meanwhile.
+     */
+    private static StreamingResponseBody region(FileChannel channel, long start, long count) {
+        return outputStream -> {
+            try (channel) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long transferred = channel.transferTo(position, remaining, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+        };
+    }
+
+    /**
+     * A range is only served when If-Range is absent or names the current archive; otherwise the
+     * client's partial copy is stale and it must get the whole archive.
+     */
+    private static boolean rangeApplies(String ifRange, String etag) {
+        if (ifRange == null) {
+            return true;
+        }
+        return ifRange.equals("\"" + etag + "\"");
+    }
+}
@@ -0,0 +1,44 @@
+-- Image storage: the manifest of stored images, the content-addressed blobs they share and the storage
+-- usage per client and report. Versioned after the baseline, so databases baselined at V1 get them too.
+
+create sequence if not exists image_manifest_seq start with 1 increment by 50;
+
+create table if not exists image_manifest (
+    id bigint not null,
+    object_key varchar(255) not null unique,
+    prefix varchar(255) not null,
+    owner_email varchar(255) not null,
+    report_id bigint,
+    size bigint not null,
+    content_type varchar(255),
+    etag varchar(255),
+    uploaded_at timestamp(6) with time zone,
+    content_hash varchar(255),
+    storage_key varchar(255),
+    preview_key varchar(255),
+    primary key (id)
+);
+
+create table if not exists image_blob (
+    hash varchar(255) not null,
+    storage_key varchar(255) not null,
+    size bigint not null,
+    content_type varchar(255),
+    etag varchar(255),
+    preview_key varchar(255),
+    preview_attempted_at timestamp(6) with time zone,
+    ref_count bigint not null,
+    created_at timestamp(6) with time zone,
+    released_at timestamp(6) with time zone,
+    primary key (hash)
+);
+
+create table if not exists storage_usage (
+    scope varchar(255) not null,
+    owner_email varchar(255) not null,
+    report_id bigint,
+    bytes bigint not null,
+    objects bigint not null,
+    updated_at timestamp(6) with time zone,
+    primary key (scope)
+);
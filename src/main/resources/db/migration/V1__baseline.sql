@@ -0,0 +1,48 @@
+-- Schema as Hibernate generated it before migrations were introduced. Databases created that way
+-- are baselined at this version and start with V2.
+
+create sequence if not exists table_user_seq start with 1 increment by 50;
+create sequence if not exists note_seq start with 1 increment by 50;
+create sequence if not exists report_seq start with 1 increment by 50;
+
+create table table_user (
+    dtype varchar(31) not null,
+    id bigint not null,
+    email varchar(255) not null,
+    password varchar(255),
+    role smallint check (role between 0 and 1),
+    full_name varchar(255),
+    active_stage bigint,
+    status varchar(255),
+    primary key (id)
+);
+
+create table form_answers (
+    id bigint not null references table_user (id),
+    form_answers varchar(255) not null
+);
+
+create table onboarding_stages (
+    id bigint not null references table_user (id),
+    onboarding_stages varchar(255) not null
+);
+
+create table note (
+    id bigint not null,
+    note_type smallint check (note_type between 0 and 2),
+    header varchar(255),
+    date date,
+    content varchar(255),
+    client_id bigint references table_user (id),
+    removed_at date,
+    primary key (id)
+);
+
+create table report (
+    id bigint not null,
+    name varchar(255),
+    date date,
+    client_id bigint references table_user (id),
+    removed_at date,
+    primary key (id)
+);
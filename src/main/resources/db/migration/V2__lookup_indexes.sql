@@ -0,0 +1,17 @@
+-- Indexes for the lookups every request makes. Notes and reports are only ever read while not
+-- removed, so their indexes leave removed rows out; id follows date so keyset pages need no sort.
+
+create unique index if not exists table_user_email_idx on table_user (email);
+
+create index if not exists note_client_type_date_idx on note (client_id, note_type, date desc, id desc)
+    where removed_at is null;
+
+create index if not exists report_client_date_idx on report (client_id, date desc, id desc)
+    where removed_at is null;
+
+-- listings match on a prefix with "like 'prefix%'"
+create index if not exists image_manifest_prefix_idx on image_manifest (prefix varchar_pattern_ops);
+
+create index if not exists image_manifest_content_hash_idx on image_manifest (content_hash);
+
+create index if not exists storage_usage_owner_email_idx on storage_usage (owner_email);
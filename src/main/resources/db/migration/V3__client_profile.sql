@@ -0,0 +1,35 @@
+-- Read model of the client profile, see ClientProfile. Enums are stored as their ordinals, so the literals
+-- below are NoteType.USEFUL_INFO (1), NoteType.CONTACT_DETAILS (2) and Role.CLIENT (1); reordering those
+-- enums changes the stored values too. ClientProfileRepository.refresh binds them from the enums.
+
+create table client_profile (
+    email varchar(255) not null,
+    full_name varchar(255),
+    form_answers jsonb,
+    onboarding_stages jsonb,
+    active_stage bigint,
+    useful_info_content varchar(255),
+    contact_details_content varchar(255),
+    updated_at timestamp(6) with time zone,
+    primary key (email)
+);
+
+-- the profile is rebuilt from the collections of one client
+create index if not exists form_answers_id_idx on form_answers (id);
+create index if not exists onboarding_stages_id_idx on onboarding_stages (id);
+
+insert into client_profile (email, full_name, form_answers, onboarding_stages, active_stage,
+                            useful_info_content, contact_details_content, updated_at)
+select u.email,
+       u.full_name,
+       coalesce((select jsonb_agg(a.form_answers) from form_answers a where a.id = u.id), '[]'::jsonb),
+       coalesce((select jsonb_agg(s.onboarding_stages) from onboarding_stages s where s.id = u.id), '[]'::jsonb),
+       u.active_stage,
+       (select n.content from note n where n.client_id = u.id and n.note_type = 1 and n.removed_at is null
+        order by n.date desc, n.id desc limit 1),
+       (select n.content from note n where n.client_id = u.id and n.note_type = 2 and n.removed_at is null
+        order by n.date desc, n.id desc limit 1),
+       now()
+from table_user u
+where u.role = 1
+on conflict (email) do nothing;
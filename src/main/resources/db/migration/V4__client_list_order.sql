@@ -0,0 +1,32 @@
+-- Positions of the elements of a client's lists, see the @OrderColumn mappings of Client. The lists are
+-- positional (active_stage indexes onboarding_stages), so the order is stored rather than left to the
+-- planner. Existing rows are numbered in their physical order, the order they were read in so far.
+
+alter table form_answers add column list_index integer;
+update form_answers a
+set list_index = numbered.list_index
+from (select ctid, row_number() over (partition by id order by ctid) - 1 as list_index from form_answers) numbered
+where a.ctid = numbered.ctid;
+alter table form_answers alter column list_index set not null;
+alter table form_answers add primary key (id, list_index);
+
+alter table onboarding_stages add column list_index integer;
+update onboarding_stages s
+set list_index = numbered.list_index
+from (select ctid, row_number() over (partition by id order by ctid) - 1 as list_index from onboarding_stages) numbered
+where s.ctid = numbered.ctid;
+alter table onboarding_stages alter column list_index set not null;
+alter table onboarding_stages add primary key (id, list_index);
+
+-- the primary keys lead with id and replace the lookup indexes of V3
+drop index if exists form_answers_id_idx;
+drop index if exists onboarding_stages_id_idx;
+
+-- profiles were built from unordered aggregates
+update client_profile p
+set form_answers = coalesce((select jsonb_agg(a.form_answers order by a.list_index)
+                             from form_answers a join table_user u on u.id = a.id
+                             where u.email = p.email), '[]'::jsonb),
+    onboarding_stages = coalesce((select jsonb_agg(s.onboarding_stages order by s.list_index)
+                                  from onboarding_stages s join table_user u on u.id = s.id
+                                  where u.email = p.email), '[]'::jsonb);
@@ -0,0 +1,11 @@
+-- Object keys signed for direct uploads, see UploadSlot.
+
+create table upload_slot (
+    object_key varchar(255) not null,
+    expires_at timestamp(6) with time zone not null,
+    created_at timestamp(6) with time zone not null,
+    primary key (object_key)
+);
+
+-- reconciliation reads the slots under a root with "like 'root%'"
+create index upload_slot_object_key_pattern_idx on upload_slot (object_key varchar_pattern_ops);
@@ -0,0 +1,169 @@
+package com.example.onboardingservice.repository;
+
+import com.example.onboardingservice.OnboardingServiceApplication;
+import com.example.onboardingservice.model.NoteType;
+import org.assertj.core.api.Assertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Plans of the hot lookups against the migrated schema. Each test runs the repository method, takes
+ * the SQL Hibernate sent for it and explains that statement with a generic plan, so the plan holds
+ * for any bound values. Sequential scans are disabled so the tests do not depend on table sizes: a
+ * lookup that can use its index does, one that cannot falls back to a scan of the whole table or
+ * primary key.
+ */
+@SpringBootTest(classes = OnboardingServiceApplication.class)
+public class SchemaIndexTests {
+
+    private static final PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:13.1-alpine")
+            .withDatabaseName("integration-tests-db")
+            .withUsername("sa")
+            .withPassword("sa");
+
+    private static final String EMAIL = "bill_edwards@gmail.com";
+
+    static {
+        postgreSQLContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                CapturedStatements.class::getName);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private ReportRepository reportRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearStatements() {
+        CapturedStatements.clear();
+    }
+
+    @Test
+    public void Schema_FindUserByEmail_UsesEmailIndex() {
+        userRepository.findByEmail(EMAIL);
+
+        Assertions.assertThat(explainFirstStatement()).contains("table_user_email_idx");
+    }
+
+    @Test
+    public void Schema_MeetingNotesPage_UsesNoteIndex() {
+        noteRepository.findPageByRecipientAndNoteType(EMAIL, NoteType.MEETING_NOTES, PageRequest.of(0, 21));
+
+        Assertions.assertThat(explainFirstStatement()).contains("note_client_type_date_idx");
+    }
+
+    @Test
+    public void Schema_MeetingNotesPageAfterCursor_UsesNoteIndex() {
+        noteRepository.findPageByRecipientAndNoteTypeAfter(EMAIL, NoteType.MEETING_NOTES,
+                LocalDate.of(2024, 3, 1), 42L, PageRequest.of(0, 21));
+
+        Assertions.assertThat(explainFirstStatement()).contains("note_client_type_date_idx");
+    }
+
+    @Test
+    public void Schema_ReportsPage_UsesReportIndex() {
+        reportRepository.findPageByRecipient(EMAIL, PageRequest.of(0, 21));
+
+        Assertions.assertThat(explainFirstStatement()).contains("report_client_date_idx");
+    }
+
+    @Test
+    public void Schema_ReportsPageAfterCursor_UsesReportIndex() {
+        reportRepository.findPageByRecipientAfter(EMAIL, LocalDate.of(2024, 3, 1), 42L, PageRequest.of(0, 21));
+
+        Assertions.assertThat(explainFirstStatement()).contains("report_client_date_idx");
+    }
+
+    /**
+     * Prepares the first statement captured since {@link #clearStatements} with its "?" markers as
+     * positional parameters and explains it under a forced generic plan, so no values are needed.
+     */
+    private String explainFirstStatement() {
+        List<String> statements = CapturedStatements.get();
+        Assertions.assertThat(statements).isNotEmpty();
+        String sql = statements.get(0);
+
+        StringBuilder prepared = new StringBuilder();
+        StringJoiner arguments = new StringJoiner(", ", "(", ")");
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameter);
+                arguments.add("null");
+            } else {
+                prepared.append(c);
+            }
+        }
+        String execute = parameter == 0 ? "execute hot_query" : "execute hot_query" + arguments;
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set enable_seqscan = off");
+                statement.execute("set plan_cache_mode = force_generic_plan");
+                statement.execute("prepare hot_query as " + prepared);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = statement.executeQuery("explain " + execute)) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                } finally {
+                    statement.execute("deallocate hot_query");
+                    statement.execute("reset plan_cache_mode");
+                    statement.execute("reset enable_seqscan");
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    /**
+     * Keeps every statement Hibernate prepares, in order.
+     */
+    public static class CapturedStatements implements StatementInspector {
+        private static final List<String> statements = new ArrayList<>();
+
+        static synchronized void clear() {
+            statements.clear();
+        }
+
+        static synchronized List<String> get() {
+            return new ArrayList<>(statements);
+        }
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (CapturedStatements.class) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
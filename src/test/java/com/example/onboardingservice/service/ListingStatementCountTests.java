@@ -0,0 +1,136 @@
+package com.example.onboardingservice.service;
+
+import com.example.onboardingservice.OnboardingServiceApplication;
+import com.example.onboardingservice.model.Client;
+import com.example.onboardingservice.model.Note;
+import com.example.onboardingservice.model.NoteType;
+import com.example.onboardingservice.model.Report;
+import com.example.onboardingservice.model.dto.ClientSummaryDto;
+import com.example.onboardingservice.model.dto.NoteDto;
+import com.example.onboardingservice.model.dto.PageDto;
+import com.example.onboardingservice.model.dto.ReportWithImagesDto;
+import com.example.onboardingservice.repository.NoteRepository;
+import com.example.onboardingservice.repository.ReportRepository;
+import com.example.onboardingservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Number of SQL statements behind the list endpoints. They must not grow with the number of rows
+ * listed, nor load the client, its form answers or onboarding stages along with notes and reports.
+ */
+@SpringBootTest(classes = OnboardingServiceApplication.class)
+public class ListingStatementCountTests {
+
+    private static final PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:13.1-alpine")
+            .withDatabaseName("integration-tests-db")
+            .withUsername("sa")
+            .withPassword("sa");
+
+    static {
+        postgreSQLContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private ReportRepository reportRepository;
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String email;
+
+    @BeforeEach
+    public void saveClient() {
+        email = "statements_" + UUID.randomUUID() + "@example.com";
+        Client client = Client.builder()
+                .email(email)
+                .fullName("Bill Edwards")
+                .formAnswers(new ArrayList<>(List.of("1", "2", "3", "4", "5", "6")))
+                .onboardingStages(new ArrayList<>(List.of("stage 1", "stage 2", "stage 3")))
+                .activeStage(1L)
+                .build();
+        userRepository.save(client);
+        for (int i = 0; i < 5; i++) {
+            noteRepository.save(Note.builder()
+                    .recipient(client)
+                    .noteType(NoteType.MEETING_NOTES)
+                    .header("header " + i)
+                    .content("content " + i)
+                    .date(LocalDate.now().minusDays(i))
+                    .build());
+            reportRepository.save(Report.builder()
+                    .recipient(client)
+                    .name("report " + i)
+                    .date(LocalDate.now().minusDays(i))
+                    .build());
+        }
+        statistics().clear();
+    }
+
+    @Test
+    public void NoteService_ListMeetingNotes_OneStatement() throws Exception {
+        PageDto<NoteDto> page = noteService.listMeetingNotes(email, null, 20);
+
+        Assertions.assertThat(page.getItems()).hasSize(5);
+        Assertions.assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void ReportService_ListReportsWithImages_ThreeStatements() throws Exception {
+        // the reports, their images and their sizes
+        PageDto<ReportWithImagesDto> page = reportService.listReportsWithImages(email, null, 20);
+
+        Assertions.assertThat(page.getItems()).hasSize(5);
+        Assertions.assertThat(statistics().getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void UserService_ListClients_ThreeStatements() {
+        // the clients, their form answers and their onboarding stages
+        List<ClientSummaryDto> clients = userService.listClients();
+
+        Assertions.assertThat(clients)
+                .filteredOn(client -> client.getEmail().equals(email))
+                .singleElement()
+                .satisfies(client -> {
+                    Assertions.assertThat(client.getFormAnswers()).hasSize(6);
+                    Assertions.assertThat(client.getOnboardingStages()).hasSize(3);
+                });
+        Assertions.assertThat(statistics().getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.onboardingservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reports the CPU time per archive of zipping JPEG-like content with every entry deflated (the old
+ * behaviour) and with the content-aware policy that stores precompressed entries. Timings depend on
+ * the machine, so nothing is asserted; excluded from the default build, run it with
+ * {@code mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=ZipCompressionPolicyBenchmarkTests}.
+ */
+@Slf4j
+@Tag("benchmark")
+public class ZipCompressionPolicyBenchmarkTests {
+    private static final int ENTRIES = 40;
+    private static final int ENTRY_SIZE = 512 * 1024;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void ZipCompressionPolicy_PrecompressedImages_CpuTimePerArchive() throws IOException {
+        List<byte[]> images = jpegLikeImages();
+        ZipCompressionPolicy deflateEverything = new ZipCompressionPolicy(6, false);
+        ZipCompressionPolicy contentAware = new ZipCompressionPolicy(6, true);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            zip(deflateEverything, images);
+            zip(contentAware, images);
+        }
+        long deflateEverythingNanos = cpuTimePerArchive(deflateEverything, images);
+        long contentAwareNanos = cpuTimePerArchive(contentAware, images);
+
+        log.info("zip_benchmark: " + ENTRIES + " x " + ENTRY_SIZE / 1024 + " KB JPEG"
+                + " deflate everything: " + deflateEverythingNanos / 1_000_000 + " ms CPU"
+                + " content-aware: " + contentAwareNanos / 1_000_000 + " ms CPU");
+    }
+
+    private static long cpuTimePerArchive(ZipCompressionPolicy policy, List<byte[]> images) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long start = threads.getCurrentThreadCpuTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            zip(policy, images);
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / ROUNDS;
+    }
+
+    private static void zip(ZipCompressionPolicy policy, List<byte[]> images) throws IOException {
+        ZipOutputStream zipOutputStream = new ZipOutputStream(OutputStream.nullOutputStream());
+        for (int i = 0; i < images.size(); i++) {
+            ZipEntry entry = new ZipEntry("image-" + i + ".jpg");
+            entry.setTime(0L);
+            policy.writeEntry(zipOutputStream, entry, images.get(i));
+        }
+        zipOutputStream.finish();
+    }
+
+    /**
+     * Random bytes behind a JPEG signature: incompressible, like the entropy-coded body of a real JPEG.
+     */
+    private static List<byte[]> jpegLikeImages() {
+        Random random = new Random(42);
+        List<byte[]> images = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            byte[] image = new byte[ENTRY_SIZE];
+            random.nextBytes(image);
+            image[0] = (byte) 0xFF;
+            image[1] = (byte) 0xD8;
+            image[2] = (byte) 0xFF;
+            image[3] = (byte) 0xE0;
+            images.add(image);
+        }
+        return images;
+    }
+}
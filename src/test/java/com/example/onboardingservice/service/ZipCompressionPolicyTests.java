@@ -0,0 +1,115 @@
+package com.example.onboardingservice.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The compression method chosen for each entry, and that every entry reads back with the
+ * size and CRC of its content.
+ */
+public class ZipCompressionPolicyTests {
+    private static final int ENTRY_SIZE = 64 * 1024;
+
+    @Test
+    public void ZipCompressionPolicy_PrecompressedImage_IsStored() throws IOException {
+        byte[] image = jpegLikeImage();
+
+        ZipEntry entry = zipAndReadBack(new ZipCompressionPolicy(6, true), image, false);
+
+        Assertions.assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+        Assertions.assertThat(entry.getSize()).isEqualTo(image.length);
+        Assertions.assertThat(entry.getCompressedSize()).isEqualTo(image.length);
+        Assertions.assertThat(entry.getCrc()).isEqualTo(crc(image));
+    }
+
+    @Test
+    public void ZipCompressionPolicy_UncompressedContent_IsDeflated() throws IOException {
+        byte[] text = "meeting notes\n".repeat(ENTRY_SIZE / 14).getBytes(StandardCharsets.UTF_8);
+
+        ZipEntry entry = zipAndReadBack(new ZipCompressionPolicy(6, true), text, false);
+
+        Assertions.assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        Assertions.assertThat(entry.getSize()).isEqualTo(text.length);
+        Assertions.assertThat(entry.getCompressedSize()).isLessThan(text.length);
+        Assertions.assertThat(entry.getCrc()).isEqualTo(crc(text));
+    }
+
+    @Test
+    public void ZipCompressionPolicy_StorePrecompressedDisabled_DeflatesImage() throws IOException {
+        byte[] image = jpegLikeImage();
+
+        ZipEntry entry = zipAndReadBack(new ZipCompressionPolicy(6, false), image, false);
+
+        Assertions.assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        Assertions.assertThat(entry.getSize()).isEqualTo(image.length);
+        Assertions.assertThat(entry.getCrc()).isEqualTo(crc(image));
+    }
+
+    @Test
+    public void ZipCompressionPolicy_StreamedPrecompressedImage_IsFramedWithoutCompression() throws IOException {
+        byte[] image = jpegLikeImage();
+
+        ZipEntry entry = zipAndReadBack(new ZipCompressionPolicy(6, true), image, true);
+
+        // level 0 deflate only adds block headers around the bytes
+        Assertions.assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        Assertions.assertThat(entry.getSize()).isEqualTo(image.length);
+        Assertions.assertThat(entry.getCompressedSize()).isGreaterThanOrEqualTo(image.length);
+        Assertions.assertThat(entry.getCrc()).isEqualTo(crc(image));
+    }
+
+    /**
+     * Zips the content as the only entry and reads it back. Sizes and CRC of deflated entries
+     * follow their data, so the entry is returned after its content has been read and compared.
+     */
+    private static ZipEntry zipAndReadBack(ZipCompressionPolicy policy, byte[] content, boolean streamed)
+            throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(archive)) {
+            ZipEntry entry = new ZipEntry("entry");
+            entry.setTime(0L);
+            if (streamed) {
+                policy.writeEntry(zipOutputStream, entry, new ByteArrayInputStream(content));
+            } else {
+                policy.writeEntry(zipOutputStream, entry, content);
+            }
+        }
+
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            Assertions.assertThat(entry).isNotNull();
+            Assertions.assertThat(zipInputStream.readAllBytes()).isEqualTo(content);
+            Assertions.assertThat(zipInputStream.getNextEntry()).isNull();
+            return entry;
+        }
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /**
+     * Random bytes behind a JPEG signature: incompressible, like the entropy-coded body of a real JPEG.
+     */
+    private static byte[] jpegLikeImage() {
+        byte[] image = new byte[ENTRY_SIZE];
+        new Random(42).nextBytes(image);
+        image[0] = (byte) 0xFF;
+        image[1] = (byte) 0xD8;
+        image[2] = (byte) 0xFF;
+        image[3] = (byte) 0xE0;
+        return image;
+    }
+}